@@ -0,0 +1,96 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import de.westemeyer.plugins.multiselect.MultiselectConfigurationFormat;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.MultiselectParameterDefinition;
+import de.westemeyer.plugins.multiselect.MultiselectVariableDescriptor;
+import de.westemeyer.plugins.multiselect.SyntheticConfigurations;
+import de.westemeyer.plugins.multiselect.parser.CsvParser;
+import hudson.util.XStream2;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic configuration shared by all benchmarks. Configurations are generated by counting rows in base
+ * {@link #fanOut}, so every item has up to {@link #fanOut} children and the tree is {@link #columns} levels deep.
+ */
+@State(Scope.Benchmark)
+public class ConfigurationState {
+    /** Number of columns, i.e. depth of the tree. */
+    @Param({"3", "6"})
+    public int columns;
+
+    /** Maximum number of children per item. */
+    @Param({"5", "20"})
+    public int fanOut;
+
+    /** Number of rows, limited by the number of combinations of columns and fan-out. */
+    @Param({"1000", "100000"})
+    public int rows;
+
+    /** Generated CSV configuration. */
+    String csv;
+
+    /** Generated CSV configuration in UTF-8 encoding. */
+    byte[] csvBytes;
+
+    /** Configuration with an additional row, as after editing a single line in the job configuration form. */
+    byte[] editedCsvBytes;
+
+    /** Decision tree parsed from configuration. */
+    MultiselectDecisionTree decisionTree;
+
+    /** Decision tree parsed as new version in the job configuration form, keeping fingerprints of its rows. */
+    MultiselectDecisionTree editedDecisionTree;
+
+    /** Parameter definition containing the decision tree. */
+    MultiselectParameterDefinition definition;
+
+    /** XStream instance as used by Jenkins to persist job configurations. */
+    XStream2 xStream;
+
+    /** Parameter definition as persisted in job configuration. */
+    String definitionXml;
+
+    /** Coordinates of the parent of the last item in tree. */
+    Integer[] coordinates;
+
+    /** Selected item indices by variable name, selecting the last row. */
+    Map<String, Integer> selectedValues;
+
+    /**
+     * Generate configuration and derived objects.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        csv = SyntheticConfigurations.createCsv(columns, fanOut, rows, false, 10);
+        csvBytes = csv.getBytes(StandardCharsets.UTF_8);
+        editedCsvBytes = (csv + "C,Edited\n").getBytes(StandardCharsets.UTF_8);
+        decisionTree = MultiselectDecisionTree.parse(csv);
+        editedDecisionTree = new CsvParser(false, false, true).analyzeConfiguration(new ByteArrayInputStream(csvBytes), new MultiselectDecisionTree()).snapshot();
+        definition = new MultiselectParameterDefinition("benchmark", "Synthetic configuration", decisionTree, MultiselectConfigurationFormat.CSV);
+        xStream = new XStream2();
+        definitionXml = xStream.toXML(definition);
+
+        // select last row of configuration
+        int[] lastRow = SyntheticConfigurations.digits(Math.min(rows, SyntheticConfigurations.combinations(columns, fanOut)) - 1, columns, fanOut);
+        coordinates = new Integer[columns - 1];
+        selectedValues = new HashMap<>();
+        List<MultiselectVariableDescriptor> variableDescriptions = decisionTree.getVariableDescriptions();
+        for (int column = 0; column < columns; ++column) {
+            if (column < columns - 1) {
+                coordinates[column] = lastRow[column];
+            }
+            selectedValues.put(variableDescriptions.get(column).getVariableName(), lastRow[column]);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for lookups done when building with parameters, i.e. the AJAX item list calls and resolving the
+ * selected values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    /**
+     * Resolve values of last row from selected item indices.
+     * @param state benchmark configuration
+     * @return resolved values
+     */
+    @Benchmark
+    public Map<String, String> resolveValues(ConfigurationState state) {
+        return state.decisionTree.resolveValues(state.selectedValues);
+    }
+
+    /**
+     * Fetch item list for last column, as done by AJAX call when changing a selection.
+     * @param state benchmark configuration
+     * @return item labels
+     */
+    @Benchmark
+    public String[] getItemList(ConfigurationState state) {
+        return state.definition.getItemList(state.coordinates);
+    }
+}
@@ -0,0 +1,55 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import de.westemeyer.plugins.multiselect.MultiselectConfigurationFormat;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.parser.CsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for parsing CSV configurations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    /**
+     * Parse CSV configuration into decision tree.
+     * @param state benchmark configuration
+     * @return parsed decision tree
+     */
+    @Benchmark
+    public MultiselectDecisionTree analyzeConfiguration(ConfigurationState state) {
+        return MultiselectConfigurationFormat.CSV.createParser().analyzeConfiguration(new ByteArrayInputStream(state.csvBytes));
+    }
+
+    /**
+     * Parse CSV configuration into decision tree, building subtrees of first column values in parallel.
+     * @param state benchmark configuration
+     * @return parsed decision tree
+     */
+    @Benchmark
+    public MultiselectDecisionTree analyzeConfigurationInParallel(ConfigurationState state) {
+        return new CsvParser(false, true).analyzeConfiguration(new ByteArrayInputStream(state.csvBytes));
+    }
+
+    /**
+     * Parse edited CSV configuration into decision tree, reusing the unchanged subtrees of the previous tree.
+     * @param state benchmark configuration
+     * @return parsed decision tree
+     */
+    @Benchmark
+    public MultiselectDecisionTree analyzeEditedConfiguration(ConfigurationState state) {
+        return new CsvParser(false, false, true).analyzeConfiguration(new ByteArrayInputStream(state.editedCsvBytes), state.editedDecisionTree);
+    }
+}
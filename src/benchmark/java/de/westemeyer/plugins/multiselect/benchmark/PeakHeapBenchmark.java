@@ -0,0 +1,106 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.parser.CsvParser;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the peak heap consumption of parsing CSV configurations with lookup tables and in streaming mode. Peak
+ * usage of all heap memory pools is reset after a full garbage collection before each parse and read afterwards, the
+ * increase over the heap used before parsing is reported as secondary result {@code peakHeapBytes}. A small young
+ * generation makes sure garbage is collected while parsing, so the peak is close to the live data. The results for
+ * {@code rows=100000} are the ones of interest, smaller configurations fit into the young generation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xmn8m"})
+public class PeakHeapBenchmark {
+    /**
+     * Parse CSV configuration using lookup tables for all items.
+     * @param state configuration to parse
+     * @param heap  peak heap measurement
+     * @return parsed decision tree
+     */
+    @Benchmark
+    public MultiselectDecisionTree lookup(ConfigurationState state, PeakHeap heap) {
+        return heap.measure(new CsvParser(false, false), state.csvBytes);
+    }
+
+    /**
+     * Parse CSV configuration in streaming mode.
+     * @param state configuration to parse
+     * @param heap  peak heap measurement
+     * @return parsed decision tree
+     */
+    @Benchmark
+    public MultiselectDecisionTree streaming(ConfigurationState state, PeakHeap heap) {
+        return heap.measure(new CsvParser(true, false), state.csvBytes);
+    }
+
+    /**
+     * Peak heap consumption of the parses of one iteration, reported as secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PeakHeap {
+        /** Largest increase of used heap over the heap used before parsing, in bytes. */
+        public long peakHeapBytes;
+
+        /**
+         * Reset result for a new iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakHeapBytes = 0;
+        }
+
+        /**
+         * Parse configuration, keeping the largest peak heap increase.
+         * @param parser parser to use
+         * @param csv    configuration in UTF-8 encoding
+         * @return parsed decision tree
+         */
+        MultiselectDecisionTree measure(CsvParser parser, byte[] csv) {
+            // start from live data only, so the peak is caused by parsing
+            System.gc();
+            long before = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                    before += pool.getUsage().getUsed();
+                }
+            }
+
+            MultiselectDecisionTree tree = parser.analyzeConfiguration(new ByteArrayInputStream(csv));
+
+            // peaks of the pools may have been reached at different times, so their sum is an upper bound
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapBytes = Math.max(peakHeapBytes, peak - before);
+            return tree;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import de.westemeyer.plugins.multiselect.parser.CsvWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for serializing decision trees as CSV and parameter definitions as job configuration XML.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    /**
+     * Serialize decision tree using CSV writer.
+     * @param state benchmark configuration
+     * @return serialized configuration
+     * @throws Exception in case an error occurs serializing the tree
+     */
+    @Benchmark
+    public byte[] csvWriter(ConfigurationState state) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new CsvWriter().serialize(state.decisionTree, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Serialize decision tree as string, as done to render the job configuration page.
+     * @param state benchmark configuration
+     * @return serialized configuration
+     */
+    @Benchmark
+    public String treeToString(ConfigurationState state) {
+        return state.decisionTree.toString();
+    }
+
+    /**
+     * Write parameter definition as job configuration XML.
+     * @param state benchmark configuration
+     * @return job configuration XML
+     */
+    @Benchmark
+    public String xStreamToXml(ConfigurationState state) {
+        return state.xStream.toXML(state.definition);
+    }
+
+    /**
+     * Read parameter definition from job configuration XML, as done for every job on startup.
+     * @param state benchmark configuration
+     * @return parameter definition
+     */
+    @Benchmark
+    public Object xStreamFromXml(ConfigurationState state) {
+        return state.xStream.fromXML(state.definitionXml);
+    }
+}
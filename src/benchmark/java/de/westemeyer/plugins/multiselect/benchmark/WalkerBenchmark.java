@@ -0,0 +1,52 @@
+package de.westemeyer.plugins.multiselect.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for walking decision trees, as done when serializing trees and resolving selected items. Run with
+ * {@code -prof gc} to see the allocation rate per traversal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalkerBenchmark {
+    /**
+     * Visit all items of the tree depth first.
+     * @param state     benchmark configuration
+     * @param blackhole sink for visited items
+     * @throws Exception in case an error occurs in visitor
+     */
+    @Benchmark
+    public void visitSubTree(ConfigurationState state, Blackhole blackhole) throws Exception {
+        state.decisionTree.visitSubTree((item, column) -> {
+            blackhole.consume(item);
+            return true;
+        });
+    }
+
+    /**
+     * Visit the items on the path to the parent of the last item in the tree.
+     * @param state     benchmark configuration
+     * @param blackhole sink for visited items
+     */
+    @Benchmark
+    public void visitSelectedItems(ConfigurationState state, Blackhole blackhole) {
+        state.decisionTree.visitSelectedItems(new ArrayDeque<>(Arrays.asList(state.coordinates)), (item, column) -> {
+            blackhole.consume(item);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for parsing, serialization and lookup hot paths of the multiselect parameters plugin.
+ */
+package de.westemeyer.plugins.multiselect.benchmark;
@@ -0,0 +1,429 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Compact, read-only representation of the items of a decision tree. Instead of one object per item with its own
+ * list of children, items are numbered column by column (breadth first) and stored in primitive arrays, referencing
+ * labels and values in a table of distinct strings. Numbering items breadth first keeps the items of a column as
+ * well as the children of an item next to each other, so children are addressed by the index of the first child
+ * and their number. Decision item objects are only created on demand, as lightweight views onto the arrays. Items are
+ * found by their values using an open addressing hash table keyed by parent item and value, built on first use.
+ */
+final class MultiselectCompactTree implements MultiselectLabelLookup, Serializable {
+    /** Serial version UID. */
+    @Serial
+    private static final long serialVersionUID = 2034870318424958516L;
+
+    /** Marker for missing string table references and parent items. */
+    private static final int NONE = -1;
+
+    /** Message for attempts to modify item views. */
+    private static final String READ_ONLY = "Compact decision tree is read-only";
+
+    /** Table of distinct labels and values. */
+    private final String[] strings;
+
+    /** Number of items in first column. */
+    private final int rootCount;
+
+    /** Index of parent item per item, {@link #NONE} for items in first column. */
+    private final int[] parent;
+
+    /** Index of first child item per item. */
+    private final int[] firstChild;
+
+    /** Number of child items per item. */
+    private final int[] childCount;
+
+    /** Index of label in string table per item. */
+    private final int[] label;
+
+    /** Index of value in string table per item. */
+    private final int[] value;
+
+    /** Hash table of item indices plus one by parent item and value, zero marks empty slots. */
+    private transient volatile int[] valueTable;
+
+    /** Structural hash code per item, computed for all items on first use. */
+    private transient volatile int[] hashCodes;
+
+    /**
+     * Create compact representation from list of items in first column.
+     * @param items list of items in first column
+     */
+    MultiselectCompactTree(List<MultiselectDecisionItem> items) {
+        // number items breadth first, so items of a column and children of an item are consecutive
+        List<MultiselectDecisionItem> order = new ArrayList<>(items);
+        for (int i = 0; i < order.size(); ++i) {
+            order.addAll(order.get(i).getChildren());
+        }
+
+        int size = order.size();
+        rootCount = items.size();
+        parent = new int[size];
+        firstChild = new int[size];
+        childCount = new int[size];
+        label = new int[size];
+        value = new int[size];
+
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> stringList = new ArrayList<>();
+        int nextChild = rootCount;
+        for (int i = 0; i < size; ++i) {
+            MultiselectDecisionItem item = order.get(i);
+            int children = item.getChildren().size();
+            firstChild[i] = nextChild;
+            childCount[i] = children;
+            for (int child = nextChild; child < nextChild + children; ++child) {
+                parent[child] = i;
+            }
+            nextChild += children;
+            label[i] = stringIndex(item.getLabel(), stringIndex, stringList);
+            value[i] = stringIndex(item.getValue(), stringIndex, stringList);
+        }
+        for (int i = 0; i < rootCount; ++i) {
+            parent[i] = NONE;
+        }
+        strings = stringList.toArray(new String[0]);
+    }
+
+    /**
+     * Find or add string in string table.
+     * @param string      string to find
+     * @param stringIndex lookup table for string positions
+     * @param stringList  string table
+     * @return position of string in string table
+     */
+    private static int stringIndex(String string, Map<String, Integer> stringIndex, List<String> stringList) {
+        if (string == null) {
+            return NONE;
+        }
+        return stringIndex.computeIfAbsent(string, key -> {
+            stringList.add(key);
+            return stringList.size() - 1;
+        });
+    }
+
+    /**
+     * Get lightweight views for items in first column.
+     * @return unmodifiable list of items in first column
+     */
+    List<MultiselectDecisionItem> getItemList() {
+        return new ChildList(0, rootCount);
+    }
+
+    @Override
+    public String[] getChildLabels(Integer... coordinates) {
+        int item = find(coordinates);
+        return item == NONE ? new String[0] : labels(firstChild[item], childCount[item]);
+    }
+
+    @Override
+    public String[][] getDependentChildLabels(int columns, Integer... coordinates) {
+        int item = find(coordinates);
+        if (item == NONE) {
+            return new String[0][];
+        }
+
+        // number of coordinates equals column index of first depending column
+        List<String[]> result = new ArrayList<>();
+        for (int column = MultiselectLabelLookup.depth(coordinates); column < columns && childCount[item] > 0; ++column) {
+            result.add(labels(firstChild[item], childCount[item]));
+            item = firstChild[item];
+        }
+        return result.toArray(new String[0][]);
+    }
+
+    @Override
+    public MultiselectItemPage getChildLabelPage(int offset, int limit, Integer... coordinates) {
+        int item = find(coordinates);
+        int first = item == NONE ? 0 : firstChild[item];
+        int count = item == NONE ? rootCount : childCount[item];
+        int from = MultiselectItemPage.start(offset, count);
+        return new MultiselectItemPage(labels(first + from, MultiselectItemPage.end(from, limit, count) - from), from, count);
+    }
+
+    @Override
+    public Integer[] findCoordinates(String... path) {
+        int[] table = getValueTable();
+        int mask = table.length - 1;
+        Integer[] coordinates = new Integer[path.length];
+        int item = NONE;
+        for (int column = 0; column < path.length; ++column) {
+            // probe slots until the item with matching parent and value or an empty slot is found
+            int slot = hash(item, path[column]) & mask;
+            int found = NONE;
+            for (int entry = table[slot]; entry != 0; slot = (slot + 1) & mask, entry = table[slot]) {
+                if (parent[entry - 1] == item && Objects.equals(string(value[entry - 1]), path[column])) {
+                    found = entry - 1;
+                    break;
+                }
+            }
+            if (found == NONE) {
+                return null;
+            }
+            coordinates[column] = found - (item == NONE ? 0 : firstChild[item]);
+            item = found;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Add size of the item arrays and strings to a memory estimator, counting every item in the arrays.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: string table, six item arrays and the root count
+        if (!estimator.object(this, 8, Integer.BYTES)) {
+            return;
+        }
+        estimator.array(strings, strings.length, MultiselectMemoryEstimator.REFERENCE);
+        for (String string : strings) {
+            estimator.string(string);
+        }
+        for (int[] array : new int[][]{parent, firstChild, childCount, label, value, valueTable, hashCodes}) {
+            // tables built on first use may be missing
+            if (array != null) {
+                estimator.array(array, array.length, Integer.BYTES);
+            }
+        }
+        for (int count : childCount) {
+            estimator.node(count == 0);
+        }
+    }
+
+    /**
+     * Get hash table of items by parent item and value, building it on first use.
+     * @return hash table with a power of two size, at least twice the number of items
+     */
+    private int[] getValueTable() {
+        int[] table = valueTable;
+        if (table == null) {
+            table = new int[Math.max(2, Integer.highestOneBit(Math.max(1, parent.length) * 2 - 1) * 2)];
+            int mask = table.length - 1;
+            for (int item = 0; item < parent.length; ++item) {
+                String itemValue = string(value[item]);
+                int slot = hash(parent[item], itemValue) & mask;
+                boolean duplicate = false;
+                while (table[slot] != 0 && !duplicate) {
+                    // the first item wins for duplicate values
+                    int entry = table[slot] - 1;
+                    duplicate = parent[entry] == parent[item] && Objects.equals(string(value[entry]), itemValue);
+                    slot = (slot + 1) & mask;
+                }
+                if (!duplicate) {
+                    table[slot] = item + 1;
+                }
+            }
+            valueTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Get structural hash code of an item, computing the hash codes of all items on first use. As children are
+     * numbered after their parents, a single pass in reverse order computes every hash code after those of its
+     * children.
+     * @param item index of item
+     * @return hash code of item content, consistent with {@link MultiselectDecisionItem#hashCode()}
+     */
+    private int hashCode(int item) {
+        int[] codes = hashCodes;
+        if (codes == null) {
+            codes = new int[parent.length];
+            for (int i = codes.length - 1; i >= 0; --i) {
+                // combine hash codes of children the same way as List.hashCode()
+                int childrenHash = 1;
+                for (int child = firstChild[i]; child < firstChild[i] + childCount[i]; ++child) {
+                    childrenHash = 31 * childrenHash + codes[child];
+                }
+                codes[i] = MultiselectDecisionItem.hashCode(string(label[i]), string(value[i]), childrenHash);
+            }
+            hashCodes = codes;
+        }
+        return codes[item];
+    }
+
+    /**
+     * Hash function for parent item and value.
+     * @param parentItem index of parent item or {@link #NONE}
+     * @param itemValue  item value
+     * @return hash code
+     */
+    private static int hash(int parentItem, String itemValue) {
+        int hash = parentItem * 0x9E3779B9 + Objects.hashCode(itemValue);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Step along the child ranges to find the item at the given coordinates.
+     * @param coordinates coordinates in tree, {@code null} values are skipped
+     * @return item index or {@link #NONE} in case no coordinates are given
+     */
+    private int find(Integer... coordinates) {
+        int item = NONE;
+        int first = 0;
+        int count = rootCount;
+        for (Integer coordinate : coordinates) {
+            if (coordinate != null) {
+                if (coordinate < 0 || coordinate >= count) {
+                    throw new IndexOutOfBoundsException("Index " + coordinate + " out of bounds for length " + count);
+                }
+                item = first + coordinate;
+                first = firstChild[item];
+                count = childCount[item];
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Create array of display labels for a range of items.
+     * @param first index of first item
+     * @param count number of items
+     * @return display labels
+     */
+    private String[] labels(int first, int count) {
+        String[] labels = new String[count];
+        for (int i = 0; i < count; ++i) {
+            labels[i] = MultiselectDecisionItem.displayLabel(string(label[first + i]), string(value[first + i]));
+        }
+        return labels;
+    }
+
+    /**
+     * Get string from string table.
+     * @param index position in string table
+     * @return string or {@code null}
+     */
+    private String string(int index) {
+        return index == NONE ? null : strings[index];
+    }
+
+    /**
+     * Unmodifiable list of consecutive items, creating item views on access.
+     */
+    private final class ChildList extends AbstractList<MultiselectDecisionItem> implements RandomAccess {
+        /** Index of first item. */
+        private final int first;
+
+        /** Number of items. */
+        private final int count;
+
+        /**
+         * Create new list of items.
+         * @param first index of first item
+         * @param count number of items
+         */
+        ChildList(int first, int count) {
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        public MultiselectDecisionItem get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+            }
+            return new ItemView(first + index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    /**
+     * Read-only decision item, reading its label, value and children from the arrays of the compact tree.
+     */
+    private final class ItemView extends MultiselectDecisionItem {
+        /** Serial version UID. */
+        @Serial
+        private static final long serialVersionUID = -4271093342361542167L;
+
+        /** Index of item. */
+        private final int item;
+
+        /**
+         * Create new item view.
+         * @param item index of item
+         */
+        ItemView(int item) {
+            super(null, null);
+            this.item = item;
+        }
+
+        @Override
+        public String getLabel() {
+            return string(label[item]);
+        }
+
+        @Override
+        public String getValue() {
+            return string(value[item]);
+        }
+
+        @Override
+        public List<MultiselectDecisionItem> getChildren() {
+            return childCount[item] == 0 ? Collections.emptyList() : new ChildList(firstChild[item], childCount[item]);
+        }
+
+        @Override
+        public MultiselectDecisionItem getParent() {
+            return parent[item] == NONE ? null : new ItemView(parent[item]);
+        }
+
+        @Override
+        public int hashCode() {
+            return MultiselectCompactTree.this.hashCode(item);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            // views onto the same item are equal without comparing their content
+            if (o instanceof ItemView && ((ItemView) o).outer() == MultiselectCompactTree.this && ((ItemView) o).item == item) {
+                return true;
+            }
+            return super.equals(o);
+        }
+
+        /**
+         * Get compact tree this item view belongs to.
+         * @return compact tree
+         */
+        private MultiselectCompactTree outer() {
+            return MultiselectCompactTree.this;
+        }
+
+        @Override
+        public void setLabel(String label) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setValue(String value) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setChildren(List<MultiselectDecisionItem> children) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setParent(MultiselectDecisionItem parent) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.westemeyer.plugins.multiselect;
+
+/**
+ * Response of a conditional AJAX call from selects.js, returned as JSON object. If the client already knows the
+ * current version of the decision tree, the response only consists of a "not modified" marker and the version,
+ * otherwise it contains the requested items as well.
+ * @param <T> type of requested items
+ */
+public final class MultiselectConditionalResponse<T> {
+    /** Current version of the decision tree. */
+    private final String version;
+
+    /** Whether the decision tree has been modified since the version known by the client. */
+    private final boolean modified;
+
+    /** Requested items, {@code null} if the tree has not been modified. */
+    private final T items;
+
+    /**
+     * Create new response.
+     * @param version  current version of the decision tree
+     * @param modified whether the decision tree has been modified since the version known by the client
+     * @param items    requested items, {@code null} if the tree has not been modified
+     */
+    private MultiselectConditionalResponse(String version, boolean modified, T items) {
+        this.version = version;
+        this.modified = modified;
+        this.items = items;
+    }
+
+    /**
+     * Create response telling the client to keep using the items it has.
+     * @param version current version of the decision tree
+     * @param <T>     type of requested items
+     * @return "not modified" response
+     */
+    static <T> MultiselectConditionalResponse<T> notModified(String version) {
+        return new MultiselectConditionalResponse<>(version, false, null);
+    }
+
+    /**
+     * Create response containing the requested items.
+     * @param version current version of the decision tree
+     * @param items   requested items
+     * @param <T>     type of requested items
+     * @return response with requested items
+     */
+    static <T> MultiselectConditionalResponse<T> modified(String version, T items) {
+        return new MultiselectConditionalResponse<>(version, true, items);
+    }
+
+    /**
+     * Get current version of the decision tree.
+     * @return current version of the decision tree
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Whether the decision tree has been modified since the version known by the client.
+     * @return {@code false} if the client can keep using the items it has
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Get requested items.
+     * @return requested items, {@code null} if the tree has not been modified
+     */
+    public T getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,231 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache for configurations parsed while validating the job configuration form. Validation of the configuration text
+ * field and saving the form parse the same text, so keeping the parsed tree and its validation result lets a check
+ * followed by a save of the same content parse only once. Entries are keyed by a SHA-256 hash of the configuration
+ * text and weighted by the estimated heap size of the parsed tree, see {@link MultiselectMemoryEstimator}. The least
+ * recently used entries are evicted once the total estimated size of cached trees exceeds the limit.
+ */
+public final class MultiselectConfigurationCache {
+    /** Maximum total estimated size of cached trees in bytes. */
+    private final long maxWeight;
+
+    /** Cached entries by content hash, in access order. */
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total estimated size of cached trees in bytes. */
+    private long weight;
+
+    /** Number of lookups that found an entry. */
+    private long hits;
+
+    /** Number of lookups that did not find an entry. */
+    private long misses;
+
+    /** Number of entries evicted to stay within the limit. */
+    private long evictions;
+
+    /**
+     * Create new cache.
+     * @param maxWeight maximum total estimated size of cached trees in bytes
+     */
+    MultiselectConfigurationCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Look up parsed configuration, keeping it in cache.
+     * @param configuration configuration text
+     * @return cached entry or {@code null}
+     */
+    synchronized Entry get(String configuration) {
+        return count(entries.get(hash(configuration)));
+    }
+
+    /**
+     * Look up parsed configuration and remove it from cache, handing the decision tree over to the caller.
+     * @param configuration configuration text
+     * @return cached entry or {@code null}
+     */
+    synchronized Entry take(String configuration) {
+        Entry entry = count(entries.remove(hash(configuration)));
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+        return entry;
+    }
+
+    /**
+     * Add parsed configuration to cache, evicting least recently used entries if necessary. Trees larger than the
+     * limit are not cached at all.
+     * @param configuration    configuration text
+     * @param decisionTree     parsed decision tree
+     * @param validationResult validation result, {@code null} if there were no problems
+     */
+    void put(String configuration, MultiselectDecisionTree decisionTree, String validationResult) {
+        // estimate size outside of lock, walking a large tree takes a while
+        long treeWeight = new MultiselectMemoryEstimator().add(decisionTree).getBytes();
+        if (treeWeight > maxWeight) {
+            return;
+        }
+        String key = hash(configuration);
+
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(decisionTree, validationResult, treeWeight));
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += treeWeight;
+            evict();
+        }
+    }
+
+    /**
+     * Evict least recently used entries until the total weight is within the limit.
+     */
+    private void evict() {
+        // evict least recently used entries, found first when iterating in access order
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+            ++evictions;
+        }
+    }
+
+    /**
+     * Count a lookup as hit or miss.
+     * @param entry entry found or {@code null}
+     * @return the given entry
+     */
+    private Entry count(Entry entry) {
+        if (entry == null) {
+            ++misses;
+        } else {
+            ++hits;
+        }
+        return entry;
+    }
+
+    /**
+     * Create SHA-256 hash of configuration text.
+     * @param configuration configuration text
+     * @return hex encoded hash
+     */
+    private static String hash(String configuration) {
+        return HexFormat.of().formatHex(sha256().digest(configuration.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Create SHA-256 message digest, used for configuration hashes and fingerprints of parsed rows.
+     * @return new message digest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Get number of lookups that found an entry.
+     * @return number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get number of lookups that did not find an entry.
+     * @return number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get ratio of lookups that found an entry.
+     * @return hit rate between 0 and 1, 0 if there have not been any lookups
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Get number of entries evicted to stay within the limit.
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get number of cached configurations.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get total estimated size of cached trees.
+     * @return total estimated size of cached trees in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Parsed configuration with its validation result.
+     */
+    static final class Entry {
+        /** Parsed decision tree. */
+        private final MultiselectDecisionTree decisionTree;
+
+        /** Validation result, {@code null} if there were no problems. */
+        private final String validationResult;
+
+        /** Estimated size of parsed decision tree in bytes. */
+        private final long weight;
+
+        /**
+         * Create new cache entry.
+         * @param decisionTree     parsed decision tree
+         * @param validationResult validation result
+         * @param weight           estimated size of parsed decision tree in bytes
+         */
+        private Entry(MultiselectDecisionTree decisionTree, String validationResult, long weight) {
+            this.decisionTree = decisionTree;
+            this.validationResult = validationResult;
+            this.weight = weight;
+        }
+
+        /**
+         * Get parsed decision tree.
+         * @return parsed decision tree
+         */
+        MultiselectDecisionTree getDecisionTree() {
+            return decisionTree;
+        }
+
+        /**
+         * Get validation result.
+         * @return validation result, {@code null} if there were no problems
+         */
+        String getValidationResult() {
+            return validationResult;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package de.westemeyer.plugins.multiselect;
 
+import de.westemeyer.plugins.multiselect.parser.BinaryParser;
+import de.westemeyer.plugins.multiselect.parser.BinaryWriter;
 import de.westemeyer.plugins.multiselect.parser.ConfigParser;
 import de.westemeyer.plugins.multiselect.parser.ConfigSerialization;
 import de.westemeyer.plugins.multiselect.parser.CsvParser;
@@ -12,7 +14,10 @@ import java.util.function.Supplier;
  */
 public enum MultiselectConfigurationFormat {
     /** CSV format. */
-    CSV(CsvParser::new, CsvWriter::new);
+    CSV(CsvParser::new, CsvWriter::new, true),
+
+    /** Binary format with string table and child counts, stored Base64 encoded where text is required. */
+    BINARY(BinaryParser::new, BinaryWriter::new, false);
 
     /** Parser supplier for a format. */
     private final transient Supplier<ConfigParser> parserFactory;
@@ -20,14 +25,19 @@ public enum MultiselectConfigurationFormat {
     /** Writer factory for a format. */
     private final transient Supplier<ConfigSerialization> writerFactory;
 
+    /** Whether the format is text based. */
+    private final transient boolean textual;
+
     /**
      * Create new configuration format instance.
      * @param parserFactory parser factory
      * @param writerFactory serializer factory
+     * @param textual       whether the format is text based
      */
-    MultiselectConfigurationFormat(Supplier<ConfigParser> parserFactory, Supplier<ConfigSerialization> writerFactory) {
+    MultiselectConfigurationFormat(Supplier<ConfigParser> parserFactory, Supplier<ConfigSerialization> writerFactory, boolean textual) {
         this.parserFactory = parserFactory;
         this.writerFactory = writerFactory;
+        this.textual = textual;
     }
 
     /**
@@ -45,4 +55,12 @@ public enum MultiselectConfigurationFormat {
     public ConfigSerialization createWriter() {
         return writerFactory.get();
     }
+
+    /**
+     * Whether the format is text based (UTF-8), otherwise configurations are Base64 encoded when kept as string.
+     * @return whether the format is text based
+     */
+    public boolean isTextual() {
+        return textual;
+    }
 }
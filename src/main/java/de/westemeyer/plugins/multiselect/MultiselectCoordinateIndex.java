@@ -0,0 +1,182 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only lookup structure, mirroring the decision tree with plain arrays. Each node keeps the display labels of
+ * its child items, so the labels for a coordinate path are found by stepping along the child arrays without
+ * walking the item tree, using visitors or mapping items to labels. Paths of values are only resolved for REST and CLI
+ * calls, so each node maps the values of its child items to their indices only once a path has been resolved through
+ * it. Afterwards, a path of values is resolved without scanning the lists of children.
+ */
+final class MultiselectCoordinateIndex implements MultiselectLabelLookup {
+    /** Shared empty label array. */
+    private static final String[] NO_LABELS = new String[0];
+
+    /** Shared empty child array. */
+    private static final MultiselectCoordinateIndex[] NO_CHILDREN = new MultiselectCoordinateIndex[0];
+
+    /** Shared node for all leaf items. */
+    private static final MultiselectCoordinateIndex LEAF = new MultiselectCoordinateIndex(NO_LABELS, NO_CHILDREN, Collections.emptyList());
+
+    /** Display labels of child items. */
+    private final String[] labels;
+
+    /** Index nodes for child items, in the same order as the labels. */
+    private final MultiselectCoordinateIndex[] children;
+
+    /** Child items, to map their values to indices on first use. */
+    private final List<MultiselectDecisionItem> items;
+
+    /** Indices of child items by their values, the first item wins for duplicate values, built on first use. */
+    private volatile Map<String, Integer> values;
+
+    /**
+     * Create a new index node.
+     * @param labels   display labels of child items
+     * @param children index nodes for child items
+     * @param items    child items
+     */
+    private MultiselectCoordinateIndex(String[] labels, MultiselectCoordinateIndex[] children, List<MultiselectDecisionItem> items) {
+        this.labels = labels;
+        this.children = children;
+        this.items = items;
+    }
+
+    /**
+     * Build index for a list of items and (recursively) their children.
+     * @param items list of items
+     * @return index node for list of items
+     */
+    static MultiselectCoordinateIndex build(List<MultiselectDecisionItem> items) {
+        if (items.isEmpty()) {
+            return LEAF;
+        }
+
+        String[] labels = new String[items.size()];
+        MultiselectCoordinateIndex[] children = new MultiselectCoordinateIndex[items.size()];
+        int i = 0;
+        for (MultiselectDecisionItem item : items) {
+            labels[i] = item.getDisplayLabel();
+            children[i] = build(item.getChildren());
+            ++i;
+        }
+        return new MultiselectCoordinateIndex(labels, children, items);
+    }
+
+    /**
+     * Get indices of child items by their values, mapping them on first use. Concurrent callers may both build the
+     * map, but they build the same one.
+     * @return indices of child items by their values
+     */
+    private Map<String, Integer> values() {
+        Map<String, Integer> map = values;
+        if (map == null) {
+            map = new HashMap<>(items.size() * 4 / 3 + 1);
+            int i = 0;
+            for (MultiselectDecisionItem item : items) {
+                map.putIfAbsent(item.getValue(), i++);
+            }
+            values = map;
+        }
+        return map;
+    }
+
+    /**
+     * Check whether the values of the child items have been mapped to their indices already.
+     * @return {@code true} if a path of values has been resolved through this node
+     */
+    boolean hasValueIndex() {
+        return values != null;
+    }
+
+    @Override
+    public String[] getChildLabels(Integer... coordinates) {
+        MultiselectCoordinateIndex node = find(coordinates);
+        return node == null ? NO_LABELS : node.labels.clone();
+    }
+
+    @Override
+    public String[][] getDependentChildLabels(int columns, Integer... coordinates) {
+        MultiselectCoordinateIndex node = find(coordinates);
+        if (node == null) {
+            return new String[0][];
+        }
+
+        // number of coordinates equals column index of first depending column
+        int column = MultiselectLabelLookup.depth(coordinates);
+        int size = 0;
+        for (MultiselectCoordinateIndex current = node; column + size < columns && current.labels.length > 0; current = current.children[0]) {
+            ++size;
+        }
+
+        String[][] result = new String[size][];
+        for (int i = 0; i < size; ++i) {
+            result[i] = node.labels.clone();
+            node = node.children[0];
+        }
+        return result;
+    }
+
+    @Override
+    public MultiselectItemPage getChildLabelPage(int offset, int limit, Integer... coordinates) {
+        MultiselectCoordinateIndex node = find(coordinates);
+        return MultiselectItemPage.of(node == null ? labels : node.labels, offset, limit);
+    }
+
+    @Override
+    public Integer[] findCoordinates(String... path) {
+        Integer[] coordinates = new Integer[path.length];
+        MultiselectCoordinateIndex node = this;
+        for (int column = 0; column < path.length; ++column) {
+            Integer index = node.values().get(path[column]);
+            if (index == null) {
+                return null;
+            }
+            coordinates[column] = index;
+            node = node.children[index];
+        }
+        return coordinates;
+    }
+
+    /**
+     * Add size of this node and (recursively) the nodes of its child items to a memory estimator. Labels and child
+     * items belong to the tree and are counted there, the shared leaf node is counted once.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: labels, children, items and values
+        if (!estimator.object(this, 4, 0)) {
+            return;
+        }
+        estimator.array(labels, labels.length, MultiselectMemoryEstimator.REFERENCE);
+        estimator.array(children, children.length, MultiselectMemoryEstimator.REFERENCE);
+        Map<String, Integer> map = values;
+        if (map != null) {
+            estimator.map(map, Integer.BYTES);
+        }
+        for (MultiselectCoordinateIndex child : children) {
+            child.estimateSize(estimator);
+        }
+    }
+
+    /**
+     * Step along the child arrays to find the index node for the item at the given coordinates.
+     * @param coordinates coordinates in tree, {@code null} values are skipped
+     * @return index node or {@code null} in case no coordinates are given
+     */
+    private MultiselectCoordinateIndex find(Integer... coordinates) {
+        MultiselectCoordinateIndex node = null;
+        MultiselectCoordinateIndex current = this;
+        for (Integer coordinate : coordinates) {
+            if (coordinate != null) {
+                node = current.children[coordinate];
+                current = node;
+            }
+        }
+        return node;
+    }
+}
@@ -5,9 +5,9 @@ import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Queue;
 
 /**
@@ -30,15 +30,39 @@ public class MultiselectDecisionItem implements Serializable {
     /** Parent item. */
     private MultiselectDecisionItem parent;
 
+    /** Structural hash code of this item and its children, computed on first use, 0 if not computed yet. */
+    private transient int hash;
+
+    /** Whether this item belongs to an immutable snapshot of a decision tree. */
+    private transient boolean frozen;
+
     /**
-     * Create a new decision item with label and value.
+     * Create a new decision item with label and value. Both strings are replaced by their canonical instances from
+     * the {@link MultiselectStringPool}.
      * @param label label for display in selection list
      * @param value value for use in variable
      */
     @DataBoundConstructor
     public MultiselectDecisionItem(String label, String value) {
-        this.label = label;
-        this.value = value;
+        this.label = MultiselectStringPool.intern(label);
+        this.value = MultiselectStringPool.intern(value);
+    }
+
+    /**
+     * Create an empty item, filled in by {@link #frozenCopy(MultiselectDecisionItem)}.
+     */
+    private MultiselectDecisionItem() {
+    }
+
+    /**
+     * Replace label and value read from job configuration by their canonical instances.
+     * @return this object
+     */
+    @Serial
+    private Object readResolve() {
+        label = MultiselectStringPool.intern(label);
+        value = MultiselectStringPool.intern(value);
+        return this;
     }
 
     /**
@@ -49,7 +73,7 @@ public class MultiselectDecisionItem implements Serializable {
      */
     public void visitSubTree(MultiselectDecisionItemVisitor visitor, Queue<MultiselectVariableDescriptor> columns) throws Exception {
         // iterate all items in list of children and then recurse
-        visitSubTree(visitor, children, columns);
+        visitSubTree(visitor, getChildren(), columns);
     }
 
     /**
@@ -60,16 +84,8 @@ public class MultiselectDecisionItem implements Serializable {
      * @throws Exception if an error occurs in visitor
      */
     public static void visitSubTree(MultiselectDecisionItemVisitor visitor, List<MultiselectDecisionItem> items, Queue<MultiselectVariableDescriptor> columns) throws Exception {
-        // remove first item from queue
-        MultiselectVariableDescriptor column = columns.poll();
-        // iterate all items in given list and then recurse
-        for (MultiselectDecisionItem subItem : items) {
-            // apply visitor function/lambda
-            if (visitor.visit(subItem, column)) {
-                // recursion with copy of remaining items in queue
-                subItem.visitSubTree(visitor, new ArrayDeque<>(columns));
-            }
-        }
+        // copy column queue once, the walker then only keeps track of the current column index
+        MultiselectDecisionTreeWalker.visitSubTree(visitor, items, new ArrayList<>(columns), 0);
     }
 
     /**
@@ -81,7 +97,7 @@ public class MultiselectDecisionItem implements Serializable {
      */
     public void visitSelectedItems(MultiselectDecisionItemVisitor visitor, Queue<MultiselectVariableDescriptor> columns, Queue<Integer> itemPath) {
         // walk through select items in list of children by their indices
-        visitSelectedItems(visitor, children, columns, itemPath);
+        visitSelectedItems(visitor, getChildren(), columns, itemPath);
     }
 
     /**
@@ -93,20 +109,8 @@ public class MultiselectDecisionItem implements Serializable {
      * @param itemPath indices of items in columns to select and walk through
      */
     public static void visitSelectedItems(MultiselectDecisionItemVisitor visitor, List<MultiselectDecisionItem> items, Queue<MultiselectVariableDescriptor> columns, Queue<Integer> itemPath) {
-        // pop first item index from queue
-        Integer index = itemPath.poll();
-
-        // index may (theoretically) be null
-        if (index != null) {
-            // select item by its position in list
-            MultiselectDecisionItem subItem = items.get(index);
-
-            // apply visitor function/lambda, removing first item from queue at the same time
-            if (visitor.visit(subItem, columns.poll())) {
-                // recursion with copy of remaining items in queue
-                subItem.visitSelectedItems(visitor, new ArrayDeque<>(columns), itemPath);
-            }
-        }
+        // copy column queue once, the walker then only keeps track of the current column index
+        MultiselectDecisionTreeWalker.visitSelectedItems(visitor, items, new ArrayList<>(columns), 0, itemPath);
     }
 
     /**
@@ -123,7 +127,9 @@ public class MultiselectDecisionItem implements Serializable {
      */
     @DataBoundSetter
     public void setLabel(String label) {
-        this.label = label;
+        checkMutable();
+        this.label = MultiselectStringPool.intern(label);
+        invalidateHashCode();
     }
 
     /**
@@ -140,7 +146,9 @@ public class MultiselectDecisionItem implements Serializable {
      */
     @DataBoundSetter
     public void setValue(String value) {
-        this.value = value;
+        checkMutable();
+        this.value = MultiselectStringPool.intern(value);
+        invalidateHashCode();
     }
 
     /**
@@ -157,10 +165,12 @@ public class MultiselectDecisionItem implements Serializable {
      */
     @DataBoundSetter
     public void setChildren(List<MultiselectDecisionItem> children) {
+        checkMutable();
         this.children = children;
         for (MultiselectDecisionItem child : children) {
             child.setParent(this);
         }
+        invalidateHashCode();
     }
 
     /**
@@ -168,7 +178,7 @@ public class MultiselectDecisionItem implements Serializable {
      * @return whether the item is the root item
      */
     public boolean isRoot() {
-        return parent == null;
+        return getParent() == null;
     }
 
     /**
@@ -176,7 +186,7 @@ public class MultiselectDecisionItem implements Serializable {
      * @return whether the item is a leaf item at the rightmost column
      */
     public boolean isLeaf() {
-        return children.isEmpty();
+        return getChildren().isEmpty();
     }
 
     /**
@@ -192,23 +202,161 @@ public class MultiselectDecisionItem implements Serializable {
      * @param parent the new parent object
      */
     public void setParent(MultiselectDecisionItem parent) {
+        checkMutable();
         this.parent = parent;
     }
 
+    /**
+     * Make this item and (recursively) its children read-only, replacing lists of children by unmodifiable lists.
+     */
+    void freeze() {
+        if (frozen) {
+            return;
+        }
+        children = List.copyOf(children);
+        frozen = true;
+        for (MultiselectDecisionItem child : children) {
+            child.freeze();
+        }
+    }
+
+    /**
+     * Whether this item belongs to an immutable snapshot of a decision tree.
+     * @return whether this item is read-only
+     */
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Create a read-only copy of this item and (recursively) its children, leaving this item unchanged. Strings are
+     * canonical instances already, so they are shared with the copy.
+     * @param parent parent of the copy, {@code null} for items of the first column
+     * @return read-only copy
+     */
+    MultiselectDecisionItem frozenCopy(MultiselectDecisionItem parent) {
+        MultiselectDecisionItem copy = new MultiselectDecisionItem();
+        copy.label = label;
+        copy.value = value;
+        copy.parent = parent;
+        copy.hash = hash;
+        MultiselectDecisionItem[] childCopies = new MultiselectDecisionItem[children.size()];
+        for (int i = 0; i < childCopies.length; ++i) {
+            childCopies[i] = children.get(i).frozenCopy(copy);
+        }
+        copy.children = List.of(childCopies);
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * Make sure this item does not belong to a snapshot before changing it.
+     */
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException(MultiselectDecisionTree.READ_ONLY);
+        }
+    }
+
     /**
      * Get display label for this item.
      * @return display label for this item
      */
     public String getDisplayLabel() {
+        return displayLabel(getLabel(), getValue());
+    }
+
+    /**
+     * Get display label for label and value of an item.
+     * @param label label of item
+     * @param value value of item
+     * @return label, or value in case label is empty
+     */
+    static String displayLabel(String label, String value) {
         if (label == null || label.length() == 0) {
             return value;
         }
         return label;
     }
 
+    /**
+     * Add size of this item, its strings and (recursively) its children to a memory estimator.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: label, value, children, parent, hash and frozen flag
+        if (!estimator.object(this, 4, Integer.BYTES + 1)) {
+            return;
+        }
+        estimator.node(children.isEmpty());
+        estimator.string(label);
+        estimator.string(value);
+        estimator.list(children);
+        for (MultiselectDecisionItem child : children) {
+            child.estimateSize(estimator);
+        }
+    }
+
+    /**
+     * Items are equal if they have the same label, value and (recursively) equal children. The parent item is not
+     * compared. Differing trees are usually told apart by their cached hash codes without descending into children.
+     * @param o object to compare to
+     * @return whether the object is an item with the same content
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MultiselectDecisionItem)) {
+            return false;
+        }
+        MultiselectDecisionItem that = (MultiselectDecisionItem) o;
+        return hashCode() == that.hashCode() && Objects.equals(getLabel(), that.getLabel()) && Objects.equals(getValue(), that.getValue())
+                && getChildren().equals(that.getChildren());
+    }
+
+    /**
+     * Structural (Merkle-style) hash code, combining label, value and the hash codes of the child items. The hash
+     * code is cached and reset along the path to the root item when label, value or children are replaced using the
+     * setter methods. Changes made directly to the list of children are not detected.
+     * @return hash code of item content
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = hashCode(getLabel(), getValue(), getChildren().hashCode());
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Combine hash code of an item from its content, consistent for all item implementations.
+     * @param label         label of item
+     * @param value         value of item
+     * @param childrenHash  hash code of list of children, as defined by {@link List#hashCode()}
+     * @return hash code of item content, never 0, so 0 can mark hash codes that have not been computed yet
+     */
+    static int hashCode(String label, String value, int childrenHash) {
+        int h = Objects.hash(label, value, childrenHash);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Reset cached hash codes of this item and its ancestors. An item's hash code is only cached if the hash codes of
+     * all its descendants are, so propagation stops at the first ancestor without cached hash code.
+     */
+    private void invalidateHashCode() {
+        for (MultiselectDecisionItem item = this; item != null && item.hash != 0; item = item.getParent()) {
+            item.hash = 0;
+        }
+    }
+
     @Override
     public String toString() {
-        return "MultiselectDecisionItem{" + "label='" + nvl(label) + '\'' + ", value='" + value + '\'' + ", children=" + children + '}';
+        return "MultiselectDecisionItem{" + "label='" + nvl(getLabel()) + '\'' + ", value='" + getValue() + '\'' + ", children=" + getChildren() + '}';
     }
 
     private String nvl(String input) {
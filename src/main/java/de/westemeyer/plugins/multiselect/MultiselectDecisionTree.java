@@ -11,14 +11,20 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -37,6 +43,12 @@ public class MultiselectDecisionTree implements Serializable {
     /** Logger for this object. */
     private static final Logger LOGGER = Logger.getLogger(MultiselectDecisionTree.class.getName());
 
+    /** Number of bytes of the SHA-256 hash used as content hash. */
+    private static final int CONTENT_HASH_BYTES = 8;
+
+    /** Message of exception thrown when trying to change a snapshot. */
+    static final String READ_ONLY = "Decision tree snapshot is read-only";
+
     /** List of items in first selection list. */
     @NonNull
     private List<MultiselectDecisionItem> itemList = new ArrayList<>();
@@ -45,6 +57,30 @@ public class MultiselectDecisionTree implements Serializable {
     @NonNull
     private List<MultiselectVariableDescriptor> variableDescriptions = new ArrayList<>();
 
+    /** Compact representation of items, replacing the item list if the tree has been compacted. */
+    private MultiselectCompactTree compactTree;
+
+    /** Lookup structure for display labels by coordinates, built on first use. */
+    private transient volatile MultiselectLabelLookup coordinateIndex;
+
+    /** Tree serialized as CSV text, created on first call of {@link #toString()}. */
+    private transient volatile String csvText;
+
+    /** Search indices for display labels of child items by coordinates of their parent item, built on first search. */
+    private transient volatile Map<List<Integer>, MultiselectLabelSearch> searchIndices;
+
+    /** Maximum number of items in a select box per column, determined on first use. */
+    private transient volatile int[] maxItemCounts;
+
+    /** Structural content hash of variables and items, computed on first use. */
+    private transient volatile String contentHash;
+
+    /** Fingerprints of the configuration rows the items of the first column have been parsed from, by item value. */
+    private transient Map<String, Long> sourceFingerprints;
+
+    /** Whether this tree is an immutable snapshot, created by a {@link Builder}. */
+    private transient boolean frozen;
+
     /**
      * Empty constructor for pipeline configuration.
      */
@@ -102,6 +138,232 @@ public class MultiselectDecisionTree implements Serializable {
         return ref.get();
     }
 
+    /**
+     * Find coordinates of the items on a path given by their values, without scanning lists of children.
+     * @param values item values, one per column starting with the first column
+     * @return coordinates of the items on the path or {@code null} in case a value does not match any item
+     */
+    public Integer[] findCoordinates(String... values) {
+        return getCoordinateIndex().findCoordinates(values);
+    }
+
+    /**
+     * Get display labels of the child items of the item at the given coordinates.
+     * @param coordinates coordinates in tree, i.e. item indices from columns
+     * @return display labels of child items, empty array in case no coordinates are given
+     */
+    public String[] getChildLabels(Integer... coordinates) {
+        return getCoordinateIndex().getChildLabels(coordinates);
+    }
+
+    /**
+     * Get display labels for all columns depending on the item at the given coordinates, always descending into the
+     * first item of each following column.
+     * @param coordinates coordinates in tree, i.e. item indices from columns
+     * @return one array of display labels per depending column, in order of columns
+     */
+    public String[][] getDependentChildLabels(Integer... coordinates) {
+        return getCoordinateIndex().getDependentChildLabels(variableDescriptions.size(), coordinates);
+    }
+
+    /**
+     * Get a page of display labels of the child items of the item at the given coordinates.
+     * @param offset      index of the first child item on the page
+     * @param limit       maximum number of labels on the page
+     * @param coordinates coordinates in tree, i.e. item indices from columns, none for the items of the first column
+     * @return page of display labels with the total number of child items
+     */
+    public MultiselectItemPage getChildLabelPage(int offset, int limit, Integer... coordinates) {
+        return getCoordinateIndex().getChildLabelPage(offset, limit, coordinates);
+    }
+
+    /**
+     * Get the first page of display labels for all columns depending on the item at the given coordinates, always
+     * descending into the first item of each following column.
+     * @param limit       maximum number of labels per page
+     * @param coordinates coordinates in tree, i.e. item indices from columns
+     * @return one page of display labels per depending column, in order of columns
+     */
+    public MultiselectItemPage[] getDependentChildLabelPages(int limit, Integer... coordinates) {
+        List<MultiselectItemPage> pages = new ArrayList<>();
+        Integer[] path = Arrays.stream(coordinates).filter(Objects::nonNull).toArray(Integer[]::new);
+        for (int column = path.length; column < variableDescriptions.size(); ++column) {
+            MultiselectItemPage page = getChildLabelPage(0, limit, path);
+            if (page.getTotal() == 0) {
+                break;
+            }
+            pages.add(page);
+
+            // continue with the first item of this column
+            path = Arrays.copyOf(path, path.length + 1);
+            path[path.length - 1] = 0;
+        }
+        return pages.toArray(new MultiselectItemPage[0]);
+    }
+
+    /**
+     * Search display labels of the child items of the item at the given coordinates, ignoring case. Labels starting
+     * with the search text come first, followed by labels containing it. The search index for the list of child items
+     * is built on first search and kept until the items change.
+     * @param query       search text
+     * @param limit       maximum number of matches
+     * @param coordinates coordinates of parent item in tree, none to search the first column
+     * @return matching display labels with their item indices
+     * @throws IndexOutOfBoundsException in case a coordinate does not match an item
+     */
+    public MultiselectSearchResult searchChildLabels(String query, int limit, Integer... coordinates) {
+        Map<List<Integer>, MultiselectLabelSearch> indices = searchIndices;
+        if (indices == null) {
+            indices = new ConcurrentHashMap<>();
+            searchIndices = indices;
+        }
+
+        // coordinates without gaps identify the parent item
+        List<Integer> parent = Arrays.stream(coordinates).filter(Objects::nonNull).collect(Collectors.toList());
+        MultiselectLabelSearch search = indices.get(parent);
+        if (search == null) {
+            String[] labels = parent.isEmpty()
+                    ? getItemList().stream().map(MultiselectDecisionItem::getDisplayLabel).toArray(String[]::new)
+                    : getChildLabels(coordinates);
+            search = new MultiselectLabelSearch(labels);
+            indices.put(parent, search);
+        }
+        return search.search(query, limit);
+    }
+
+    /**
+     * Get structural content hash of this tree, covering labels and variable names of all columns as well as labels,
+     * values and structure of all items. Trees with the same content have the same hash, no matter which format they
+     * have been parsed from or whether they have been compacted, so the hash can be used as version of the content.
+     * @return first 16 hex digits of the SHA-256 hash of the tree structure
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            MessageDigest digest = MultiselectConfigurationCache.sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            update(digest, buffer, variableDescriptions.size());
+            for (MultiselectVariableDescriptor variableDescription : variableDescriptions) {
+                update(digest, buffer, variableDescription.getLabel());
+                update(digest, buffer, variableDescription.getVariableName());
+            }
+            update(digest, buffer, getItemList());
+            hash = HexFormat.of().formatHex(digest.digest(), 0, CONTENT_HASH_BYTES);
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Add a list of items and (recursively) their children to a content hash, each list preceded by its size.
+     * @param digest message digest
+     * @param buffer buffer for integer values
+     * @param items  list of items
+     */
+    private static void update(MessageDigest digest, ByteBuffer buffer, List<MultiselectDecisionItem> items) {
+        update(digest, buffer, items.size());
+        for (MultiselectDecisionItem item : items) {
+            update(digest, buffer, item.getLabel());
+            update(digest, buffer, item.getValue());
+            update(digest, buffer, item.getChildren());
+        }
+    }
+
+    /**
+     * Add a string to a content hash, preceded by its length, so adjacent strings can not be confused.
+     * @param digest message digest
+     * @param buffer buffer for integer values
+     * @param string string, {@code null} is distinguished from empty strings
+     */
+    private static void update(MessageDigest digest, ByteBuffer buffer, String string) {
+        if (string == null) {
+            update(digest, buffer, -1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        update(digest, buffer, bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Add an integer value to a content hash.
+     * @param digest message digest
+     * @param buffer buffer for integer values
+     * @param value  integer value
+     */
+    private static void update(MessageDigest digest, ByteBuffer buffer, int value) {
+        buffer.clear();
+        buffer.putInt(value);
+        digest.update(buffer.array());
+    }
+
+    /**
+     * Get maximum number of items in a select box of a column, i.e. the length of the longest list of child items of
+     * the items in the previous column.
+     * @param column column index
+     * @return maximum number of items, 0 for columns without items
+     */
+    public int getMaxItemCount(int column) {
+        int[] counts = maxItemCounts;
+        if (counts == null) {
+            // walk the tree column by column, collecting the children of all items of a column
+            counts = new int[variableDescriptions.size()];
+            List<List<MultiselectDecisionItem>> lists = List.of(getItemList());
+            for (int i = 0; i < counts.length && !lists.isEmpty(); ++i) {
+                List<List<MultiselectDecisionItem>> children = new ArrayList<>();
+                for (List<MultiselectDecisionItem> list : lists) {
+                    counts[i] = Math.max(counts[i], list.size());
+                    for (MultiselectDecisionItem item : list) {
+                        if (!item.getChildren().isEmpty()) {
+                            children.add(item.getChildren());
+                        }
+                    }
+                }
+                lists = children;
+            }
+            maxItemCounts = counts;
+        }
+        return column >= 0 && column < counts.length ? counts[column] : 0;
+    }
+
+    /**
+     * Get lookup structure for display labels by coordinates, building it on first use.
+     * @return lookup structure for display labels by coordinates
+     */
+    private MultiselectLabelLookup getCoordinateIndex() {
+        MultiselectLabelLookup index = coordinateIndex;
+        if (index == null) {
+            // compact representation can be used directly
+            index = compactTree != null ? compactTree : MultiselectCoordinateIndex.build(itemList);
+            coordinateIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Replace the list of item objects by a compact, read-only representation, storing the items in primitive
+     * arrays and a table of distinct strings. Afterwards, {@link #getItemList()} returns lightweight, read-only
+     * views onto the compact representation, created on demand.
+     */
+    public void compact() {
+        if (compactTree == null) {
+            checkMutable();
+            compactTree = new MultiselectCompactTree(itemList);
+            itemList = new ArrayList<>();
+            coordinateIndex = null;
+            sourceFingerprints = null;
+            updateInitialValues();
+        }
+    }
+
+    /**
+     * Whether the items of this tree are kept in a compact, read-only representation.
+     * @return whether the tree has been compacted
+     */
+    public boolean isCompact() {
+        return compactTree != null;
+    }
+
     /**
      * Serialize the tree using a given serialization method.
      * @param serialization serialization method to use
@@ -118,7 +380,7 @@ public class MultiselectDecisionTree implements Serializable {
      * @throws Exception in case an error occurs in lambda
      */
     public void visitSubTree(MultiselectDecisionItemVisitor visitor) throws Exception {
-        MultiselectDecisionItem.visitSubTree(visitor, itemList, new ArrayDeque<>(variableDescriptions));
+        MultiselectDecisionTreeWalker.visitSubTree(visitor, getItemList(), variableDescriptions, 0);
     }
 
     /**
@@ -127,7 +389,7 @@ public class MultiselectDecisionTree implements Serializable {
      * @param visitor  lambda to execute for select items in tree
      */
     public void visitSelectedItems(Queue<Integer> itemPath, MultiselectDecisionItemVisitor visitor) {
-        MultiselectDecisionItem.visitSelectedItems(visitor, itemList, new ArrayDeque<>(variableDescriptions), itemPath);
+        MultiselectDecisionTreeWalker.visitSelectedItems(visitor, getItemList(), variableDescriptions, 0, itemPath);
     }
 
     /**
@@ -169,12 +431,12 @@ public class MultiselectDecisionTree implements Serializable {
     }
 
     /**
-     * Get item list of first column.
+     * Get item list of first column. For compacted trees, this is an unmodifiable list of read-only item views.
      * @return item list of first column
      */
     @NonNull
     public List<MultiselectDecisionItem> getItemList() {
-        return itemList;
+        return compactTree != null ? compactTree.getItemList() : itemList;
     }
 
     /**
@@ -183,10 +445,40 @@ public class MultiselectDecisionTree implements Serializable {
      */
     @DataBoundSetter
     public void setItemList(@NonNull List<MultiselectDecisionItem> itemList) {
+        checkMutable();
         this.itemList = itemList;
+        this.compactTree = null;
+        this.coordinateIndex = null;
+        this.csvText = null;
+        this.searchIndices = null;
+        this.maxItemCounts = null;
+        this.contentHash = null;
+        this.sourceFingerprints = null;
         updateInitialValues();
     }
 
+    /**
+     * Get fingerprints of the configuration rows the items of the first column have been parsed from. Parsers use
+     * them to take over items whose rows have not changed when parsing a new version of the configuration.
+     * @return fingerprints by value of first column item, empty if the items have not been parsed as a new version
+     * of a configuration edited in the job configuration form, or the tree has been compacted
+     */
+    @NonNull
+    public Map<String, Long> getSourceFingerprints() {
+        Map<String, Long> fingerprints = sourceFingerprints;
+        return fingerprints == null ? Map.of() : Collections.unmodifiableMap(fingerprints);
+    }
+
+    /**
+     * Set fingerprints of the configuration rows the items of the first column have been parsed from. They are reset
+     * whenever the item list is replaced.
+     * @param sourceFingerprints fingerprints by value of first column item
+     */
+    public void setSourceFingerprints(@NonNull Map<String, Long> sourceFingerprints) {
+        checkMutable();
+        this.sourceFingerprints = new HashMap<>(sourceFingerprints);
+    }
+
     /**
      * Get meta information about build variables/columns.
      * @return meta information about build variables/columns.
@@ -228,7 +520,11 @@ public class MultiselectDecisionTree implements Serializable {
      */
     @DataBoundSetter
     public void setVariableDescriptions(@NonNull List<MultiselectVariableDescriptor> variableDescriptions) {
+        checkMutable();
         this.variableDescriptions = variableDescriptions;
+        this.csvText = null;
+        this.maxItemCounts = null;
+        this.contentHash = null;
         int i = 0;
         for (MultiselectVariableDescriptor variableDescription : this.variableDescriptions) {
             variableDescription.setColumnIndex(i++);
@@ -237,25 +533,201 @@ public class MultiselectDecisionTree implements Serializable {
     }
 
     /**
-     * Set up initial values for display in drop down boxes on web page.
+     * Take over the variable descriptors of a previous version of this tree for all columns whose label and variable
+     * name have not changed, so their select boxes keep their UUIDs when a configuration is edited.
+     * @param previous previous version of this tree
+     */
+    void keepVariableUuids(@NonNull MultiselectDecisionTree previous) {
+        checkMutable();
+        List<MultiselectVariableDescriptor> previousDescriptions = previous.getVariableDescriptions();
+        List<MultiselectVariableDescriptor> descriptions = new ArrayList<>(variableDescriptions.size());
+        for (MultiselectVariableDescriptor variableDescription : variableDescriptions) {
+            int column = descriptions.size();
+            MultiselectVariableDescriptor previousDescription = column < previousDescriptions.size() ? previousDescriptions.get(column) : null;
+            if (previousDescription != null && Objects.equals(previousDescription.getLabel(), variableDescription.getLabel())
+                    && Objects.equals(previousDescription.getVariableName(), variableDescription.getVariableName())) {
+                descriptions.add(new MultiselectVariableDescriptor(previousDescription));
+            } else {
+                descriptions.add(variableDescription);
+            }
+        }
+        setVariableDescriptions(descriptions);
+    }
+
+    /**
+     * Reset initial values for display in drop down boxes on web page. They are determined again on first use.
+     * Snapshots are connected to their variable descriptors when built and never change, so nothing is reset.
      */
     public void updateInitialValues() {
-        if (!(variableDescriptions.isEmpty() || itemList.isEmpty())) {
-            // iterate all columns
-            for (int i = 0; i < variableDescriptions.size(); ++i) {
-                // get column descriptor for column index
-                MultiselectVariableDescriptor columnDescriptor = variableDescriptions.get(i);
-
-                // find initial values per column and keep them in variable descriptor
-                columnDescriptor.setInitialValues(getInitialValuesForColumn(i));
+        if (frozen) {
+            return;
+        }
+        for (MultiselectVariableDescriptor variableDescription : variableDescriptions) {
+            variableDescription.setDecisionTree(this);
+        }
+    }
+
+    /**
+     * Whether this tree is an immutable snapshot. Snapshots can safely be read by concurrent threads without locking,
+     * all attempts to change them, their variable descriptors or items throw an {@link UnsupportedOperationException}.
+     * @return whether this tree is an immutable snapshot
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Get immutable snapshot of this tree.
+     * @return this tree if it is a snapshot already, otherwise a new snapshot built from this tree
+     * @see #toBuilder()
+     */
+    public MultiselectDecisionTree snapshot() {
+        return frozen ? this : toBuilder().build();
+    }
+
+    /**
+     * Create builder for a snapshot with the content of this tree.
+     * @return builder initialized with variable descriptors and items of this tree
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder().variableDescriptions(variableDescriptions);
+        if (compactTree != null) {
+            builder.compactTree = compactTree;
+        } else {
+            builder.itemList(itemList);
+        }
+
+        // CSV text and fingerprints of the same content can be reused
+        builder.csvText = csvText;
+        builder.sourceFingerprints = sourceFingerprints;
+        return builder;
+    }
+
+    /**
+     * Create builder for a snapshot.
+     * @return empty builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Make sure this tree is not a snapshot before changing it.
+     */
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    /**
+     * Add size of this tree, its items, variable descriptors, strings, cached CSV text, source fingerprints and the
+     * lookup and search indices built so far to a memory estimator.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: item list, variable descriptions, compact tree, five cached values, fingerprints and frozen flag
+        if (!estimator.object(this, 9, 1)) {
+            return;
+        }
+
+        // items are either kept as objects or in compact representation
+        if (compactTree != null) {
+            compactTree.estimateSize(estimator);
+        }
+        estimator.list(itemList);
+        for (MultiselectDecisionItem item : itemList) {
+            item.estimateSize(estimator);
+        }
+
+        estimator.list(variableDescriptions);
+        for (MultiselectVariableDescriptor variableDescription : variableDescriptions) {
+            variableDescription.estimateSize(estimator);
+        }
+
+        estimator.string(csvText);
+        estimator.string(contentHash);
+        estimator.map(sourceFingerprints, Long.BYTES);
+
+        // indices built on demand, the compact tree serves as its own coordinate index
+        int[] counts = maxItemCounts;
+        if (counts != null) {
+            estimator.array(counts, counts.length, Integer.BYTES);
+        }
+        if (coordinateIndex instanceof MultiselectCoordinateIndex index) {
+            index.estimateSize(estimator);
+        }
+        Map<List<Integer>, MultiselectLabelSearch> indices = searchIndices;
+        if (estimator.map(indices)) {
+            for (Map.Entry<List<Integer>, MultiselectLabelSearch> entry : indices.entrySet()) {
+                estimator.list(entry.getKey());
+                for (Integer coordinate : entry.getKey()) {
+                    estimator.boxed(coordinate, Integer.BYTES);
+                }
+                entry.getValue().estimateSize(estimator);
             }
+        }
+    }
 
-            variableDescriptions.get(0).setInitialValues(itemList);
+    /**
+     * Trees are equal if they have equal variable descriptors and equal items, no matter whether they have been
+     * compacted. Items compare their cached structural hash codes first, so differing trees are usually told apart
+     * without walking the whole tree.
+     * @param o object to compare to
+     * @return whether the object is a decision tree with the same content
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
         }
+        if (!(o instanceof MultiselectDecisionTree)) {
+            return false;
+        }
+        MultiselectDecisionTree that = (MultiselectDecisionTree) o;
+        return variableDescriptions.equals(that.variableDescriptions) && getItemList().equals(that.getItemList());
     }
 
+    /**
+     * Structural hash code, combining the hash codes of the variable descriptors and of the items of the first
+     * column, which in turn are cached per item.
+     * @return hash code of tree content
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(variableDescriptions, getItemList());
+    }
+
+    /**
+     * Connect variable descriptors to the tree after deserialization, so they can determine their initial values.
+     * @return this object
+     */
+    @Serial
+    private Object readResolve() {
+        updateInitialValues();
+        return this;
+    }
+
+    /**
+     * Serialize tree as CSV text. The text is kept until the tree is changed using {@link #setItemList(List)} or
+     * {@link #setVariableDescriptions(List)}, so changing items or variable descriptors directly is not reflected.
+     * @return tree serialized as CSV text
+     */
     @Override
     public String toString() {
+        String text = csvText;
+        if (text == null) {
+            text = writeCsv();
+            csvText = text;
+        }
+        return text;
+    }
+
+    /**
+     * Serialize tree as CSV text.
+     * @return tree serialized as CSV text, empty in case of errors
+     */
+    private String writeCsv() {
         // create string output stream
         try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
             // create new CSV writer instance
@@ -271,4 +743,139 @@ public class MultiselectDecisionTree implements Serializable {
             return "";
         }
     }
+
+    /**
+     * Builder for immutable snapshots of decision trees. Items and variable descriptors are only published to readers
+     * once the snapshot is complete, so there is no point in time where items and descriptors do not match.
+     * <p>
+     * Variable descriptors are copied, keeping their UUIDs. Items are copied as well, so the source tree remains
+     * mutable and is not shared with the snapshot; read-only items of the first column, e.g. taken over from another
+     * snapshot, are shared. Callers owning a tree that is no longer used otherwise, like a freshly parsed one, can
+     * avoid copying a large tree by letting the snapshot {@link #takeOwnership(boolean) take ownership} of the items,
+     * which become read-only in place. If the snapshot is compacted, items are converted into the compact
+     * representation and remain unchanged.
+     */
+    public static final class Builder {
+        /** Variable descriptors of the snapshot. */
+        private List<MultiselectVariableDescriptor> variableDescriptions = List.of();
+
+        /** Items of first column. */
+        private List<MultiselectDecisionItem> itemList = List.of();
+
+        /** Compact representation of items, used instead of the item list if set. */
+        private MultiselectCompactTree compactTree;
+
+        /** Whether to keep the items of the snapshot in compact representation. */
+        private boolean compact;
+
+        /** Whether the snapshot takes over the items instead of copying them. */
+        private boolean takeOwnership;
+
+        /** Tree serialized as CSV text, if known already. */
+        private String csvText;
+
+        /** Fingerprints of the configuration rows the items have been parsed from, if known. */
+        private Map<String, Long> sourceFingerprints;
+
+        /**
+         * Create new builder.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Set variable descriptors of the snapshot.
+         * @param variableDescriptions variable descriptors, one per column
+         * @return this builder
+         */
+        public Builder variableDescriptions(@NonNull List<MultiselectVariableDescriptor> variableDescriptions) {
+            this.variableDescriptions = variableDescriptions;
+            this.csvText = null;
+            return this;
+        }
+
+        /**
+         * Set items of first column. The snapshot keeps read-only copies of the items, unless it
+         * {@link #takeOwnership(boolean) takes ownership} of them.
+         * @param itemList items of first column
+         * @return this builder
+         */
+        public Builder itemList(@NonNull List<MultiselectDecisionItem> itemList) {
+            this.itemList = itemList;
+            this.compactTree = null;
+            this.csvText = null;
+            this.sourceFingerprints = null;
+            return this;
+        }
+
+        /**
+         * Set whether to keep the items of the snapshot in compact representation, see
+         * {@link MultiselectDecisionTree#compact()}.
+         * @param compact whether to compact the items
+         * @return this builder
+         */
+        public Builder compact(boolean compact) {
+            this.compact = compact;
+            return this;
+        }
+
+        /**
+         * Set whether the snapshot takes ownership of the items instead of copying them. The items and their
+         * children become read-only in place when the snapshot is built, so the caller must not use them (or the tree
+         * they have been taken from) as mutable items afterwards.
+         * @param takeOwnership whether to freeze the items in place instead of copying them
+         * @return this builder
+         */
+        public Builder takeOwnership(boolean takeOwnership) {
+            this.takeOwnership = takeOwnership;
+            return this;
+        }
+
+        /**
+         * Build immutable snapshot.
+         * @return new snapshot
+         */
+        public MultiselectDecisionTree build() {
+            MultiselectDecisionTree tree = new MultiselectDecisionTree();
+
+            // items are compacted, frozen in place or copied
+            if (compactTree != null) {
+                tree.compactTree = compactTree;
+            } else if (compact) {
+                tree.compactTree = new MultiselectCompactTree(itemList);
+            }
+            if (tree.compactTree == null) {
+                MultiselectDecisionItem[] items = new MultiselectDecisionItem[itemList.size()];
+                int i = 0;
+                for (MultiselectDecisionItem item : itemList) {
+                    if (takeOwnership) {
+                        item.freeze();
+                    } else if (!item.isFrozen()) {
+                        item = item.frozenCopy(null);
+                    }
+                    items[i++] = item;
+                }
+                tree.itemList = List.of(items);
+            } else {
+                tree.itemList = List.of();
+            }
+
+            // copies of descriptors are connected to the snapshot before it is published
+            List<MultiselectVariableDescriptor> descriptors = new ArrayList<>(variableDescriptions.size());
+            for (MultiselectVariableDescriptor variableDescription : variableDescriptions) {
+                MultiselectVariableDescriptor descriptor = new MultiselectVariableDescriptor(variableDescription);
+                descriptor.setColumnIndex(descriptors.size());
+                descriptor.setDecisionTree(tree);
+                descriptor.freeze();
+                descriptors.add(descriptor);
+            }
+            tree.variableDescriptions = List.copyOf(descriptors);
+
+            // fingerprints only refer to items that are kept as objects
+            tree.csvText = csvText;
+            tree.sourceFingerprints = tree.compactTree == null ? sourceFingerprints : null;
+            tree.frozen = true;
+            return tree;
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+
+/**
+ * Traversal engine for decision trees. Instead of copying the queue of remaining column descriptors for every visited
+ * item, the walker keeps the complete list of descriptors and only passes the current depth (column index) along the
+ * way, so visiting the tree does not allocate anything per item.
+ */
+final class MultiselectDecisionTreeWalker {
+    /**
+     * Private constructor for utility class.
+     */
+    private MultiselectDecisionTreeWalker() {
+    }
+
+    /**
+     * Walk through the tree depth first, applying the visitor to each item.
+     * @param visitor visitor object or lambda collecting information
+     * @param items   item list (column entries) to iterate
+     * @param columns column descriptions to go along with the items
+     * @param depth   column index of the given item list
+     * @throws Exception if an error occurs in visitor
+     */
+    static void visitSubTree(MultiselectDecisionItemVisitor visitor, List<MultiselectDecisionItem> items, List<MultiselectVariableDescriptor> columns, int depth) throws Exception {
+        // column descriptor is the same for all items in list
+        MultiselectVariableDescriptor column = column(columns, depth);
+
+        // avoid creating an iterator object for the (usual) array based lists
+        if (items instanceof RandomAccess) {
+            for (int i = 0; i < items.size(); ++i) {
+                visitItem(visitor, items.get(i), column, columns, depth);
+            }
+        } else {
+            for (MultiselectDecisionItem item : items) {
+                visitItem(visitor, item, column, columns, depth);
+            }
+        }
+    }
+
+    /**
+     * Apply visitor to a single item and recurse into its children.
+     * @param visitor visitor object or lambda collecting information
+     * @param item    the item to visit
+     * @param column  column description for the item
+     * @param columns column descriptions to go along with the items
+     * @param depth   column index of the item
+     * @throws Exception if an error occurs in visitor
+     */
+    private static void visitItem(MultiselectDecisionItemVisitor visitor, MultiselectDecisionItem item, MultiselectVariableDescriptor column, List<MultiselectVariableDescriptor> columns, int depth) throws Exception {
+        // apply visitor function/lambda
+        if (visitor.visit(item, column)) {
+            // recursion with next column index
+            visitSubTree(visitor, item.getChildren(), columns, depth + 1);
+        }
+    }
+
+    /**
+     * Walk through the tree selecting one item per column by its index (no iteration involved).
+     * @param visitor  visitor object or lambda collecting information
+     * @param items    item list (column entries) to select the first item from
+     * @param columns  column descriptions to go along with the items
+     * @param depth    column index of the given item list
+     * @param itemPath indices of items in columns to select and walk through, consumed while walking
+     */
+    static void visitSelectedItems(MultiselectDecisionItemVisitor visitor, List<MultiselectDecisionItem> items, List<MultiselectVariableDescriptor> columns, int depth, Queue<Integer> itemPath) {
+        // current list of items to select from
+        List<MultiselectDecisionItem> currentItems = items;
+
+        // column index of current list of items
+        int column = depth;
+
+        // pop item indices from queue until it is exhausted (index may theoretically be null)
+        for (Integer index = itemPath.poll(); index != null; index = itemPath.poll()) {
+            // select item by its position in list
+            MultiselectDecisionItem subItem = currentItems.get(index);
+
+            // apply visitor function/lambda, stop walking if requested
+            if (!visitor.visit(subItem, column(columns, column))) {
+                return;
+            }
+
+            // move on to next column
+            currentItems = subItem.getChildren();
+            ++column;
+        }
+    }
+
+    /**
+     * Get column descriptor for a column index.
+     * @param columns column descriptions
+     * @param depth   column index
+     * @return column descriptor or {@code null} in case tree is deeper than the list of descriptors
+     */
+    private static MultiselectVariableDescriptor column(List<MultiselectVariableDescriptor> columns, int depth) {
+        return depth < columns.size() ? columns.get(depth) : null;
+    }
+}
@@ -0,0 +1,87 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.Arrays;
+
+/**
+ * Page of display labels of a select box, returned to selects.js as JSON object. Along with the labels, the page
+ * contains the index of its first item and the total number of items, so further pages can be requested as needed.
+ */
+public final class MultiselectItemPage {
+    /** Display labels of the items on this page. */
+    private final String[] labels;
+
+    /** Index of the first item on this page. */
+    private final int offset;
+
+    /** Total number of items in the select box. */
+    private final int total;
+
+    /**
+     * Create new page.
+     * @param labels display labels of the items on this page
+     * @param offset index of the first item on this page
+     * @param total  total number of items in the select box
+     */
+    MultiselectItemPage(String[] labels, int offset, int total) {
+        this.labels = labels;
+        this.offset = offset;
+        this.total = total;
+    }
+
+    /**
+     * Create page from a complete array of display labels.
+     * @param labels all display labels of the select box
+     * @param offset index of first item, limited to the number of labels
+     * @param limit  maximum number of labels on the page
+     * @return page of display labels
+     */
+    static MultiselectItemPage of(String[] labels, int offset, int limit) {
+        int from = start(offset, labels.length);
+        return new MultiselectItemPage(Arrays.copyOfRange(labels, from, end(from, limit, labels.length)), from, labels.length);
+    }
+
+    /**
+     * Limit index of first item on a page to the valid range.
+     * @param offset requested index of first item
+     * @param total  total number of items
+     * @return index of first item between 0 and the total number of items
+     */
+    static int start(int offset, int total) {
+        return Math.max(0, Math.min(offset, total));
+    }
+
+    /**
+     * Determine end index (exclusive) of a page.
+     * @param from  index of first item
+     * @param limit maximum number of items on the page
+     * @param total total number of items
+     * @return end index, at most the total number of items
+     */
+    static int end(int from, int limit, int total) {
+        return from + Math.max(0, Math.min(limit, total - from));
+    }
+
+    /**
+     * Get display labels of the items on this page.
+     * @return display labels
+     */
+    public String[] getLabels() {
+        return labels.clone();
+    }
+
+    /**
+     * Get index of the first item on this page.
+     * @return index of the first item
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get total number of items in the select box.
+     * @return total number of items
+     */
+    public int getTotal() {
+        return total;
+    }
+}
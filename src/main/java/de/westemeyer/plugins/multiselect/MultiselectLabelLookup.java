@@ -0,0 +1,58 @@
+package de.westemeyer.plugins.multiselect;
+
+/**
+ * Read access to display labels of items by their coordinates, as needed by AJAX calls from the "build with
+ * parameters" page, and to coordinates of items by their values, as needed to trigger builds by REST or CLI.
+ */
+interface MultiselectLabelLookup {
+    /**
+     * Get display labels of the child items of the item at the given coordinates.
+     * @param coordinates coordinates in tree, i.e. item indices from columns, {@code null} values are skipped
+     * @return new array of display labels, empty array in case no coordinates are given
+     * @throws IndexOutOfBoundsException in case a coordinate does not match an item
+     */
+    String[] getChildLabels(Integer... coordinates);
+
+    /**
+     * Get display labels for all columns depending on the item at the given coordinates, descending into the first
+     * item of each column.
+     * @param columns     total number of columns
+     * @param coordinates coordinates in tree, i.e. item indices from columns, {@code null} values are skipped
+     * @return one array of display labels per depending column, empty array in case no coordinates are given
+     * @throws IndexOutOfBoundsException in case a coordinate does not match an item
+     */
+    String[][] getDependentChildLabels(int columns, Integer... coordinates);
+
+    /**
+     * Get a page of display labels of the child items of the item at the given coordinates.
+     * @param offset      index of the first child item on the page
+     * @param limit       maximum number of labels on the page
+     * @param coordinates coordinates in tree, i.e. item indices from columns, {@code null} values are skipped, none
+     *                    for the items of the first column
+     * @return page of display labels with the total number of child items
+     * @throws IndexOutOfBoundsException in case a coordinate does not match an item
+     */
+    MultiselectItemPage getChildLabelPage(int offset, int limit, Integer... coordinates);
+
+    /**
+     * Find coordinates of the items on a path given by their values, using one hash lookup per column.
+     * @param values item values, one per column starting with the first column
+     * @return coordinates of the items on the path or {@code null} in case a value does not match any item
+     */
+    Integer[] findCoordinates(String... values);
+
+    /**
+     * Count non-null coordinates.
+     * @param coordinates coordinates in tree
+     * @return number of non-null coordinates
+     */
+    static int depth(Integer... coordinates) {
+        int depth = 0;
+        for (Integer coordinate : coordinates) {
+            if (coordinate != null) {
+                ++depth;
+            }
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,151 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Search index over the display labels of the child items of one item (or the items of the first column). Labels are
+ * compared ignoring case and kept in an array of item indices sorted by label, so all labels starting with the search
+ * text are found by binary search. Labels containing the search text somewhere else are found by scanning the
+ * folded labels, which only happens if there are not enough prefix matches.
+ */
+final class MultiselectLabelSearch {
+    /** Display labels in item order. */
+    private final String[] labels;
+
+    /** Display labels converted to lower case, in item order. */
+    private final String[] folded;
+
+    /** Item indices sorted by folded label. */
+    private final int[] sorted;
+
+    /**
+     * Create search index for a list of display labels.
+     * @param labels display labels in item order
+     */
+    MultiselectLabelSearch(String[] labels) {
+        this.labels = labels;
+        this.folded = new String[labels.length];
+        for (int i = 0; i < labels.length; ++i) {
+            folded[i] = fold(labels[i]);
+        }
+        this.sorted = Arrays.stream(sortedIndices(folded)).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Sort item indices by folded label, keeping item order for equal labels.
+     * @param folded folded labels in item order
+     * @return item indices sorted by folded label
+     */
+    private static Integer[] sortedIndices(String[] folded) {
+        Integer[] indices = new Integer[folded.length];
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator.comparing(index -> folded[index]));
+        return indices;
+    }
+
+    /**
+     * Find labels matching a search text. Labels starting with the search text come first, in alphabetical order,
+     * followed by labels containing the search text, in item order. An empty search text matches the first labels in
+     * item order.
+     * @param query search text, case is ignored
+     * @param limit maximum number of matches
+     * @return matching labels with their item indices
+     */
+    MultiselectSearchResult search(String query, int limit) {
+        String key = fold(query);
+        int[] indices = new int[Math.max(0, Math.min(limit, labels.length))];
+        int count = 0;
+
+        if (key.isEmpty()) {
+            for (; count < indices.length; ++count) {
+                indices[count] = count;
+            }
+            return result(indices, count, count == labels.length);
+        }
+
+        // prefix matches are a consecutive range of the sorted indices
+        for (int position = lowerBound(key); position < sorted.length && folded[sorted[position]].startsWith(key); ++position) {
+            if (count == indices.length) {
+                return result(indices, count, false);
+            }
+            indices[count++] = sorted[position];
+        }
+
+        // add labels containing the search text anywhere but at the beginning
+        for (int item = 0; item < folded.length; ++item) {
+            if (!folded[item].startsWith(key) && folded[item].contains(key)) {
+                if (count == indices.length) {
+                    return result(indices, count, false);
+                }
+                indices[count++] = item;
+            }
+        }
+        return result(indices, count, true);
+    }
+
+    /**
+     * Find first position in sorted indices with a folded label not less than the given key.
+     * @param key folded search text
+     * @return position in sorted indices
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (folded[sorted[middle]].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Create search result from matching item indices.
+     * @param indices  array holding matching item indices
+     * @param count    number of matches in array
+     * @param complete whether all matching labels are included
+     * @return search result
+     */
+    private MultiselectSearchResult result(int[] indices, int count, boolean complete) {
+        int[] matches = Arrays.copyOf(indices, count);
+        String[] matchingLabels = new String[count];
+        for (int i = 0; i < count; ++i) {
+            matchingLabels[i] = labels[matches[i]];
+        }
+        return new MultiselectSearchResult(matches, matchingLabels, complete);
+    }
+
+    /**
+     * Add size of this search index to a memory estimator. The display labels are shared with the items and counted
+     * there, unless they have been folded to new strings.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: labels, folded labels and sorted indices
+        if (!estimator.object(this, 3, 0)) {
+            return;
+        }
+        estimator.array(labels, labels.length, MultiselectMemoryEstimator.REFERENCE);
+        estimator.array(folded, folded.length, MultiselectMemoryEstimator.REFERENCE);
+        for (String string : folded) {
+            estimator.string(string);
+        }
+        estimator.array(sorted, sorted.length, Integer.BYTES);
+    }
+
+    /**
+     * Convert label or search text to lower case for comparison.
+     * @param text label or search text
+     * @return lower case text, empty string for {@code null}
+     */
+    private static String fold(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
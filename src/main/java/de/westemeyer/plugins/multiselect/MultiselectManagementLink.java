@@ -0,0 +1,161 @@
+package de.westemeyer.plugins.multiselect;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.ManagementLink;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersDefinitionProperty;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Diagnostics page in "Manage Jenkins", showing timers of the plugin's operations, statistics of string pool and
+ * validation cache and gauges of all multiselect parameter definitions. The same report is available as JSON object
+ * from the {@code metrics} endpoint below the page, e.g. for scraping by monitoring tools.
+ */
+@Extension
+public class MultiselectManagementLink extends ManagementLink {
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.MultiselectManagementLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.MultiselectManagementLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "multiselect-parameter";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    /**
+     * Write report as JSON object.
+     * @param rsp response to write report to
+     * @throws IOException if writing the response fails
+     */
+    public void doMetrics(StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(getReport().toString(2));
+    }
+
+    /**
+     * Create report of the current state of timers, caches and parameter definitions, rendered on the diagnostics
+     * page and returned by the JSON endpoint.
+     * @return report as JSON object
+     */
+    public JSONObject getReport() {
+        Jenkins jenkins = Jenkins.get();
+        jenkins.checkPermission(Jenkins.ADMINISTER);
+        MultiselectParameterDefinition.DescriptorImpl descriptor = jenkins.getDescriptorByType(MultiselectParameterDefinition.DescriptorImpl.class);
+        return createReport(MultiselectMetrics.getTimers(), descriptor != null ? descriptor.getValidationCache() : null, collectStatistics(jenkins));
+    }
+
+    /**
+     * Collect statistics of all multiselect parameter definitions in all jobs.
+     * @param jenkins Jenkins instance
+     * @return statistics of parameter definitions, largest trees first, followed by trees not held in memory
+     */
+    private static List<MultiselectParameterStatistics> collectStatistics(Jenkins jenkins) {
+        List<MultiselectParameterStatistics> statistics = new ArrayList<>();
+        for (Job<?, ?> job : jenkins.getAllItems(Job.class)) {
+            ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                continue;
+            }
+            for (ParameterDefinition definition : property.getParameterDefinitions()) {
+                if (definition instanceof MultiselectParameterDefinition multiselectDefinition) {
+                    statistics.add(MultiselectParameterStatistics.of(job.getFullName(), multiselectDefinition));
+                }
+            }
+        }
+        statistics.sort(Comparator.comparingLong(MultiselectParameterStatistics::getEstimatedBytes).reversed()
+                .thenComparing(MultiselectParameterStatistics::getJobName)
+                .thenComparing(MultiselectParameterStatistics::getParameterName));
+        return statistics;
+    }
+
+    /**
+     * Create report from timers, caches and parameter statistics.
+     * @param timers          timers of all operations
+     * @param validationCache validation cache of parameter descriptor, {@code null} if there is none
+     * @param parameters      statistics of parameter definitions
+     * @return report as JSON object
+     */
+    static JSONObject createReport(List<MultiselectMetrics.Timer> timers, @CheckForNull MultiselectConfigurationCache validationCache, List<MultiselectParameterStatistics> parameters) {
+        JSONObject report = new JSONObject();
+
+        // timers of measured operations
+        JSONArray timerArray = new JSONArray();
+        for (MultiselectMetrics.Timer timer : timers) {
+            JSONObject object = new JSONObject();
+            object.put("operation", timer.getOperation().name());
+            object.put("method", timer.getOperation().getMethod());
+            object.put("count", timer.getCount());
+            object.put("totalMillis", timer.getTotalMillis());
+            object.put("meanMillis", timer.getMeanMillis());
+            object.put("maxMillis", timer.getMaxMillis());
+            timerArray.add(object);
+        }
+        report.put("timers", timerArray);
+
+        // string pool shared by all decision trees
+        JSONObject stringPool = new JSONObject();
+        stringPool.put("size", MultiselectStringPool.size());
+        stringPool.put("hits", MultiselectStringPool.getHits());
+        stringPool.put("misses", MultiselectStringPool.getMisses());
+        stringPool.put("bytesSaved", MultiselectStringPool.getBytesSaved());
+        report.put("stringPool", stringPool);
+
+        // configurations parsed while validating job configuration forms
+        if (validationCache != null) {
+            JSONObject cache = new JSONObject();
+            cache.put("size", validationCache.size());
+            cache.put("weight", validationCache.getWeight());
+            cache.put("hits", validationCache.getHits());
+            cache.put("misses", validationCache.getMisses());
+            cache.put("hitRate", validationCache.getHitRate());
+            cache.put("evictions", validationCache.getEvictions());
+            report.put("validationCache", cache);
+        }
+
+        // gauges per parameter definition
+        JSONArray parameterArray = new JSONArray();
+        for (MultiselectParameterStatistics statistics : parameters) {
+            JSONObject object = new JSONObject();
+            object.put("job", statistics.getJobName());
+            object.put("parameter", statistics.getParameterName());
+            object.put("configurationLength", statistics.getConfigurationLength());
+            object.put("materialized", statistics.isMaterialized());
+            object.put("nodeCount", statistics.getNodeCount());
+            object.put("leafCount", statistics.getLeafCount());
+            object.put("depth", statistics.getDepth());
+            object.put("duplicateStringRatio", statistics.getDuplicateStringRatio());
+            object.put("estimatedBytes", statistics.getEstimatedBytes());
+            parameterArray.add(object);
+        }
+        report.put("parameters", parameterArray);
+
+        return report;
+    }
+}
@@ -0,0 +1,269 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the heap retained by decision trees without instrumentation. Object sizes are computed from the fields of
+ * the plugin's classes, assuming the layout of a 64-bit HotSpot JVM: compressed object pointers as long as the maximum
+ * heap size is below 32 GiB, 8 byte alignment and compact strings. Every object is counted once, however many
+ * references point to it, so strings shared through the {@link MultiselectStringPool} only count for the first
+ * tree (or item) referencing them.
+ * <p>
+ * Besides the size, the estimator counts items, leaf items and string objects holding the same characters as another
+ * string object. A high ratio of such duplicates indicates that the tree would get much smaller when compacted.
+ */
+final class MultiselectMemoryEstimator {
+    /** Maximum heap size up to which the JVM uses compressed object pointers by default. */
+    private static final long COMPRESSED_OOPS_LIMIT = 32L * 1024 * 1024 * 1024;
+
+    /** Whether object references are compressed to 4 bytes. */
+    private static final boolean COMPRESSED_OOPS = Runtime.getRuntime().maxMemory() < COMPRESSED_OOPS_LIMIT;
+
+    /** Size of an object reference. */
+    static final int REFERENCE = COMPRESSED_OOPS ? 4 : 8;
+
+    /** Size of an object header. */
+    static final int OBJECT_HEADER = COMPRESSED_OOPS ? 12 : 16;
+
+    /** Size of an array header, including the length field. */
+    static final int ARRAY_HEADER = COMPRESSED_OOPS ? 16 : 20;
+
+    /** Object alignment. */
+    private static final int ALIGNMENT = 8;
+
+    /** Objects counted so far, compared by identity. */
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Number of string objects per string value. */
+    private final Map<String, Integer> stringCopies = new HashMap<>();
+
+    /** Estimated number of bytes. */
+    private long bytes;
+
+    /** Number of items. */
+    private long nodeCount;
+
+    /** Number of items without children. */
+    private long leafCount;
+
+    /** Number of string objects. */
+    private long stringCount;
+
+    /** Number of string objects holding the same characters as another string object. */
+    private long duplicateStringCount;
+
+    /**
+     * Add size of a decision tree.
+     * @param tree decision tree
+     * @return this object
+     */
+    MultiselectMemoryEstimator add(MultiselectDecisionTree tree) {
+        tree.estimateSize(this);
+        return this;
+    }
+
+    /**
+     * Add size of an object, unless it has been counted before.
+     * @param object         object
+     * @param references     number of reference fields
+     * @param primitiveBytes total size of primitive fields
+     * @return {@code true} if object has not been counted before
+     */
+    boolean object(Object object, int references, int primitiveBytes) {
+        if (object == null || !visited.add(object)) {
+            return false;
+        }
+        bytes += align((long) OBJECT_HEADER + (long) references * REFERENCE + primitiveBytes);
+        return true;
+    }
+
+    /**
+     * Add size of a string, unless it has been counted before.
+     * @param string string, may be {@code null}
+     */
+    void string(String string) {
+        // fields: value array, hash, coder and hashIsZero
+        if (!object(string, 1, Integer.BYTES + 2)) {
+            return;
+        }
+        bytes += array(isLatin1(string) ? string.length() : 2L * string.length());
+        ++stringCount;
+        if (stringCopies.merge(string, 1, Integer::sum) > 1) {
+            ++duplicateStringCount;
+        }
+    }
+
+    /**
+     * Add size of an array list without its elements, unless it has been counted before. The capacity of the list is
+     * assumed to match its size.
+     * @param list list
+     * @return {@code true} if list has not been counted before
+     */
+    boolean list(List<?> list) {
+        // fields: element array, size and modification count
+        if (!object(list, 1, 2 * Integer.BYTES)) {
+            return false;
+        }
+        bytes += array((long) list.size() * REFERENCE);
+        return true;
+    }
+
+    /**
+     * Add size of a hash map with string keys and boxed primitive values, unless it has been counted before.
+     * @param map        hash map, may be {@code null}
+     * @param valueBytes size of the primitive wrapped by a value
+     */
+    void map(Map<String, ?> map, int valueBytes) {
+        if (!map(map)) {
+            return;
+        }
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            string(entry.getKey());
+            boxed(entry.getValue(), valueBytes);
+        }
+    }
+
+    /**
+     * Add size of a hash map (or concurrent hash map) and its entry nodes without keys and values, unless it has been
+     * counted before. The capacity of the table is assumed to be the smallest one holding all entries at the default
+     * load factor.
+     * @param map hash map, may be {@code null}
+     * @return {@code true} if map has not been counted before
+     */
+    boolean map(Map<?, ?> map) {
+        boolean concurrent = map instanceof ConcurrentHashMap;
+        // hash map fields: table, entry set, key set, values, size, modification count, threshold and load factor;
+        // concurrent hash map fields: table, next table, counter cells, three views, base count, size control,
+        // transfer index and busy flag
+        if (concurrent ? !object(map, 6, Long.BYTES + 3 * Integer.BYTES) : !object(map, 4, 4 * Integer.BYTES)) {
+            return false;
+        }
+
+        // concurrent hash maps allocate a table of default capacity with the first entry
+        int capacity = Integer.highestOneBit(Math.max(1, map.size() * 4 / 3) * 2 - 1);
+        if (concurrent) {
+            capacity = map.isEmpty() ? 0 : Math.max(16, capacity);
+        }
+        if (!concurrent || capacity > 0) {
+            bytes += array((long) capacity * REFERENCE);
+        }
+
+        // node fields: hash, key, value and next node
+        bytes += map.size() * align((long) OBJECT_HEADER + 3L * REFERENCE + Integer.BYTES);
+        return true;
+    }
+
+    /**
+     * Add size of a boxed primitive, unless it has been counted before or is one of the small integers cached by
+     * {@link Integer#valueOf(int)}, which do not belong to any tree.
+     * @param value          boxed primitive, may be {@code null}
+     * @param primitiveBytes size of the wrapped primitive
+     */
+    void boxed(Object value, int primitiveBytes) {
+        if (value instanceof Integer integer && integer >= -128 && integer <= 127) {
+            return;
+        }
+        object(value, 0, primitiveBytes);
+    }
+
+    /**
+     * Add size of an array, unless it has been counted before.
+     * @param array        array
+     * @param length       number of elements
+     * @param elementBytes size of an element
+     */
+    void array(Object array, int length, int elementBytes) {
+        if (array != null && visited.add(array)) {
+            bytes += array((long) length * elementBytes);
+        }
+    }
+
+    /**
+     * Count an item.
+     * @param leaf whether the item has no children
+     */
+    void node(boolean leaf) {
+        ++nodeCount;
+        if (leaf) {
+            ++leafCount;
+        }
+    }
+
+    /**
+     * Compute aligned size of an array.
+     * @param contentBytes total size of elements
+     * @return size of array including header
+     */
+    private static long array(long contentBytes) {
+        return align(ARRAY_HEADER + contentBytes);
+    }
+
+    /**
+     * Round size up to object alignment.
+     * @param size size in bytes
+     * @return aligned size
+     */
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Check whether a compact string stores one byte per character.
+     * @param string string
+     * @return {@code true} if all characters are within Latin-1
+     */
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); ++i) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get estimated number of bytes.
+     * @return estimated number of bytes of all counted objects
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get number of items.
+     * @return number of items
+     */
+    long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get number of items without children.
+     * @return number of leaf items
+     */
+    long getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Get number of string objects.
+     * @return number of distinct string objects
+     */
+    long getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Get ratio of string objects holding the same characters as another string object.
+     * @return ratio between 0 and 1, 0 if there are no strings
+     */
+    double getDuplicateStringRatio() {
+        return stringCount == 0 ? 0 : (double) duplicateStringCount / stringCount;
+    }
+}
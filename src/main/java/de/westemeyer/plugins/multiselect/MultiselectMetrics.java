@@ -0,0 +1,207 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controller-wide timers for the operations of the plugin that are on the hot path of job configuration and
+ * "build with parameters" pages. Timers only use striped counters, so recording is cheap and does not block
+ * concurrent request threads.
+ */
+public final class MultiselectMetrics {
+    /** Timers per operation. */
+    private static final Map<Operation, Timer> TIMERS = new EnumMap<>(Operation.class);
+
+    static {
+        for (Operation operation : Operation.values()) {
+            TIMERS.put(operation, new Timer(operation));
+        }
+    }
+
+    /**
+     * Utility class without instances.
+     */
+    private MultiselectMetrics() {
+    }
+
+    /**
+     * Get start time for an operation.
+     * @return current value of the system's high-resolution time source in nanoseconds
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record execution of an operation.
+     * @param operation operation that has been executed
+     * @param start     start time as returned by {@link #start()}
+     */
+    public static void stop(Operation operation, long start) {
+        TIMERS.get(operation).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Get timers of all operations.
+     * @return timers in order of operations
+     */
+    public static List<Timer> getTimers() {
+        return new ArrayList<>(TIMERS.values());
+    }
+
+    /**
+     * Get timer of an operation.
+     * @param operation operation
+     * @return timer of the operation
+     */
+    public static Timer getTimer(Operation operation) {
+        return TIMERS.get(operation);
+    }
+
+    /**
+     * Reset all timers.
+     */
+    public static void reset() {
+        TIMERS.values().forEach(Timer::reset);
+    }
+
+    /**
+     * Operations measured by timers.
+     */
+    public enum Operation {
+        /** Parse CSV configuration. */
+        PARSE_CSV("CsvParser.analyzeConfiguration"),
+        /** Validate configuration in job configuration form. */
+        CHECK_CONFIGURATION("DescriptorImpl.doCheckConfiguration"),
+        /** Create parameter definition from submitted job configuration form. */
+        NEW_INSTANCE("DescriptorImpl.newInstance"),
+        /** Get item list of a select box. */
+        GET_ITEM_LIST("getItemList"),
+        /** Get pages of item lists. */
+        GET_ITEM_PAGES("getItemPage, getDependentItemPages"),
+        /** Search item list of a select box. */
+        SEARCH_ITEM_LIST("searchItemList"),
+        /** Get depending select boxes. */
+        GET_DEPENDING_VARIABLE_IDS("getDependingVariableIds"),
+        /** Create parameter value for a build. */
+        CREATE_VALUE("createValue");
+
+        /** Name of the measured method. */
+        private final String method;
+
+        /**
+         * Create new operation.
+         * @param method name of the measured method
+         */
+        Operation(String method) {
+            this.method = method;
+        }
+
+        /**
+         * Get name of the measured method.
+         * @return name of the measured method
+         */
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * Number of executions, total and maximum duration of an operation.
+     */
+    public static final class Timer {
+        /** Measured operation. */
+        private final Operation operation;
+
+        /** Number of executions. */
+        private final LongAdder count = new LongAdder();
+
+        /** Total duration in nanoseconds. */
+        private final LongAdder totalNanos = new LongAdder();
+
+        /** Maximum duration in nanoseconds. */
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Create new timer.
+         * @param operation measured operation
+         */
+        private Timer(Operation operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Record an execution.
+         * @param nanos duration in nanoseconds
+         */
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        /**
+         * Reset counters.
+         */
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+
+        /**
+         * Get measured operation.
+         * @return measured operation
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Get number of executions.
+         * @return number of executions
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Get total duration of all executions.
+         * @return total duration in milliseconds
+         */
+        public double getTotalMillis() {
+            return millis(totalNanos.sum());
+        }
+
+        /**
+         * Get mean duration of an execution.
+         * @return mean duration in milliseconds, 0 if there have not been any executions
+         */
+        public double getMeanMillis() {
+            long executions = count.sum();
+            return executions == 0 ? 0 : millis(totalNanos.sum()) / executions;
+        }
+
+        /**
+         * Get maximum duration of an execution.
+         * @return maximum duration in milliseconds
+         */
+        public double getMaxMillis() {
+            return millis(maxNanos.get());
+        }
+
+        /**
+         * Convert nanoseconds to milliseconds.
+         * @param nanos duration in nanoseconds
+         * @return duration in milliseconds
+         */
+        private static double millis(long nanos) {
+            return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -3,11 +3,19 @@ package de.westemeyer.plugins.multiselect;
 import de.westemeyer.plugins.multiselect.parser.MultiselectParameterParser;
 import hudson.Extension;
 import hudson.Util;
+import hudson.cli.CLICommand;
+import hudson.model.Item;
+import hudson.model.Job;
 import hudson.model.ParameterDefinition;
 import hudson.model.ParameterValue;
+import hudson.model.ParametersDefinitionProperty;
 import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -20,14 +28,17 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.Serial;
+import java.lang.ref.SoftReference;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,10 +57,36 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
     /** Configured parameter name constant. */
     private static final String PARAMETER_NAME = "name";
 
-    /** Job CSV configuration content. */
+    /** Whether to keep decision trees in compact representation, can be enabled using a system property. */
+    private static final boolean COMPACT_TREES = SystemProperties.getBoolean(MultiselectParameterDefinition.class.getName() + ".compactTrees");
+
+    /**
+     * Whether to keep decision trees behind soft references, so they can be dropped under memory pressure and parsed
+     * again on next access. Enabled by default, can be disabled using a system property.
+     */
+    private static final boolean SOFT_TREES = SystemProperties.getBoolean(MultiselectParameterDefinition.class.getName() + ".softTrees", true);
+
+    /** Maximum number of matches returned by a single search request. */
+    private static final int MAX_SEARCH_RESULTS = 500;
+
+    /** Maximum number of items returned by a single page request. */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /** Number of items loaded into a select box at once, can be changed using a system property. */
+    private static final int PAGE_SIZE = pageSize(SystemProperties.getInteger(MultiselectParameterDefinition.class.getName() + ".pageSize", 200));
+
+    /** Whether selects.js prefetches item lists for options next to the selected one, enabled using a system property. */
+    private static final boolean PREFETCH = SystemProperties.getBoolean(MultiselectParameterDefinition.class.getName() + ".prefetch");
+
+    /** Decision tree object graph, only read from job configurations written by earlier versions. */
+    @Deprecated
     @CheckForNull
     private MultiselectDecisionTree decisionTree;
 
+    /** Decision tree serialized in configuration format, as persisted in job configuration. */
+    @CheckForNull
+    private String configuration;
+
     /** Configuration format for a parameter definition. */
     @CheckForNull
     private MultiselectConfigurationFormat format = MultiselectConfigurationFormat.CSV;
@@ -57,6 +94,13 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
     /** UUID to be used to distinguish JavaScript values for multiple parameters from each other. */
     private String uuid = UUIDGenerator.generateUUID(15);
 
+    /**
+     * Reference to immutable snapshot of decision tree, parsed from configuration on first use and possibly dropped
+     * again. Readers only dereference it, so they never lock and never see a tree that is being changed.
+     */
+    @CheckForNull
+    private transient volatile Supplier<MultiselectDecisionTree> materializedDecisionTree;
+
     /**
      * Create new parameter definition object.
      * @param name        parameter name
@@ -77,8 +121,8 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
      */
     public MultiselectParameterDefinition(String name, String description, @CheckForNull MultiselectDecisionTree decisionTree, @CheckForNull MultiselectConfigurationFormat format) {
         this(name, description);
-        this.decisionTree = decisionTree;
         this.format = format;
+        updateDecisionTree(decisionTree, false);
     }
 
     /**
@@ -88,18 +132,188 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
      */
     @JavaScriptMethod(name = "getItemList")
     public String[] getItemList(Integer[] coordinates) {
-        Queue<Integer> itemPath = createCoordinates(coordinates);
-        List<String> returnList = new ArrayList<>();
-        if (decisionTree != null) {
-            decisionTree.visitSelectedItems(itemPath, (item, column) -> {
-                // return values from last coordinate
-                if (itemPath.isEmpty()) {
-                    item.getChildren().forEach(child -> returnList.add(child.getDisplayLabel()));
-                }
-                return true;
-            });
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            if (tree == null) {
+                return new String[0];
+            }
+            return tree.getChildLabels(coordinates);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.GET_ITEM_LIST, start);
+        }
+    }
+
+    /**
+     * Get item lists for all columns depending on the given coordinates in a single AJAX call from selects.js. The
+     * first item in every following column is selected, just like the select boxes do when they are refilled.
+     * @param coordinates coordinates in tree, i.e. item indices from columns up to the changed select box
+     * @return one array of parameter values per depending column, in order of columns
+     */
+    @JavaScriptMethod(name = "getDependentItemLists")
+    public String[][] getDependentItemLists(Integer[] coordinates) {
+        MultiselectDecisionTree tree = getDecisionTree();
+        if (tree == null) {
+            return new String[0][];
+        }
+        return tree.getDependentChildLabels(coordinates);
+    }
+
+    /**
+     * Get a page of the item list for an AJAX call from selects.js, as the user scrolls to the end of a select box.
+     * @param coordinates coordinates in tree, i.e. item indices from the columns before the select box
+     * @param offset      index of the first item on the page
+     * @param limit       maximum number of items on the page, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return page of display labels with the total number of items
+     */
+    @JavaScriptMethod(name = "getItemPage")
+    public MultiselectItemPage getItemPage(Integer[] coordinates, int offset, int limit) {
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            if (tree == null) {
+                return new MultiselectItemPage(new String[0], 0, 0);
+            }
+            return tree.getChildLabelPage(offset, pageSize(limit), coordinates != null ? coordinates : new Integer[0]);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.GET_ITEM_PAGES, start);
+        }
+    }
+
+    /**
+     * Get the first page of the item lists for all columns depending on the given coordinates in a single AJAX call
+     * from selects.js. Unlike {@link #getDependentItemLists(Integer[])}, the size of the response is limited by the
+     * page size, no matter how many items the columns have.
+     * @param coordinates coordinates in tree, i.e. item indices from columns up to the changed select box
+     * @return one page of display labels per depending column, in order of columns
+     */
+    @JavaScriptMethod(name = "getDependentItemPages")
+    public MultiselectItemPage[] getDependentItemPages(Integer[] coordinates) {
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            if (tree == null) {
+                return new MultiselectItemPage[0];
+            }
+            return tree.getDependentChildLabelPages(PAGE_SIZE, coordinates);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.GET_ITEM_PAGES, start);
+        }
+    }
+
+    /**
+     * Get version token of the decision tree, used by selects.js to revalidate item lists cached for an earlier
+     * version of this parameter definition. The token is the structural content hash of the decision tree, so it only
+     * changes if variables or items change, not if the tree is stored in a different format.
+     * @return version token, empty for parameter definitions without decision tree
+     */
+    @Nonnull
+    public String getVersion() {
+        MultiselectDecisionTree tree = getDecisionTree();
+        return tree == null ? "" : tree.getContentHash();
+    }
+
+    /**
+     * Whether selects.js prefetches the item lists depending on the options next to the selected one when a select box
+     * is focused or clicked.
+     * @return whether item lists are prefetched
+     */
+    public boolean isPrefetch() {
+        return PREFETCH;
+    }
+
+    /**
+     * Get number of items loaded into a select box at once, used by index.jelly and selects.js.
+     * @return page size, at least 1
+     */
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    /**
+     * Limit a page size to the valid range, so misconfigured or requested sizes of 0 or less still load items.
+     * @param size requested page size
+     * @return page size between 1 and {@value #MAX_PAGE_SIZE}
+     */
+    static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Conditional variant of {@link #getItemList(Integer[])}, only sending the item list if the decision tree has
+     * been modified since the version known by the client.
+     * @param coordinates coordinates in tree, i.e. item indices from columns
+     * @param version     version of the decision tree known by the client, may be {@code null}
+     * @return "not modified" marker or array of parameter values for given coordinates
+     */
+    @JavaScriptMethod(name = "getItemListIfModified")
+    public MultiselectConditionalResponse<String[]> getItemListIfModified(Integer[] coordinates, String version) {
+        return conditional(version, () -> getItemList(coordinates));
+    }
+
+    /**
+     * Conditional variant of {@link #getItemPage(Integer[], int, int)}, only sending the page if the decision tree
+     * has been modified since the version known by the client.
+     * @param coordinates coordinates in tree, i.e. item indices from the columns before the select box
+     * @param offset      index of the first item on the page
+     * @param limit       maximum number of items on the page
+     * @param version     version of the decision tree known by the client, may be {@code null}
+     * @return "not modified" marker or page of display labels
+     */
+    @JavaScriptMethod(name = "getItemPageIfModified")
+    public MultiselectConditionalResponse<MultiselectItemPage> getItemPageIfModified(Integer[] coordinates, int offset, int limit, String version) {
+        return conditional(version, () -> getItemPage(coordinates, offset, limit));
+    }
+
+    /**
+     * Conditional variant of {@link #getDependentItemPages(Integer[])}, only sending the pages if the decision tree
+     * has been modified since the version known by the client.
+     * @param coordinates coordinates in tree, i.e. item indices from columns up to the changed select box
+     * @param version     version of the decision tree known by the client, may be {@code null}
+     * @return "not modified" marker or one page of display labels per depending column
+     */
+    @JavaScriptMethod(name = "getDependentItemPagesIfModified")
+    public MultiselectConditionalResponse<MultiselectItemPage[]> getDependentItemPagesIfModified(Integer[] coordinates, String version) {
+        return conditional(version, () -> getDependentItemPages(coordinates));
+    }
+
+    /**
+     * Create conditional response, comparing the version known by the client to the content hash of the decision
+     * tree, which is computed only once per tree. Items are only looked up if the versions differ.
+     * @param version version of the decision tree known by the client, may be {@code null}
+     * @param items   function to look up the requested items
+     * @param <T>     type of requested items
+     * @return "not modified" marker or response containing the requested items
+     */
+    private <T> MultiselectConditionalResponse<T> conditional(String version, Supplier<T> items) {
+        String currentVersion = getVersion();
+        if (currentVersion.equals(version)) {
+            return MultiselectConditionalResponse.notModified(currentVersion);
+        }
+        return MultiselectConditionalResponse.modified(currentVersion, items.get());
+    }
+
+    /**
+     * Search the items of a select box by display label while the user is typing, used in an AJAX call from
+     * selects.js. Only the matching items are transferred, along with their indices in the complete item list.
+     * @param coordinates coordinates in tree, i.e. item indices from the columns before the searched select box
+     * @param query       search text, case is ignored
+     * @param limit       maximum number of matches, at most {@value #MAX_SEARCH_RESULTS}
+     * @return matching display labels with their item indices
+     */
+    @JavaScriptMethod(name = "searchItemList")
+    public MultiselectSearchResult searchItemList(Integer[] coordinates, String query, int limit) {
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            int maxResults = Math.max(0, Math.min(limit, MAX_SEARCH_RESULTS));
+            if (tree == null) {
+                return new MultiselectSearchResult(new int[0], new String[0], true);
+            }
+            return tree.searchChildLabels(query, maxResults, coordinates != null ? coordinates : new Integer[0]);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.SEARCH_ITEM_LIST, start);
         }
-        return returnList.toArray(new String[0]);
     }
 
     /**
@@ -109,21 +323,27 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
      */
     @JavaScriptMethod(name = "getDependingVariableIds")
     public String[] getDependingVariableIds(String selectedId) {
-        if (decisionTree == null) {
-            return new String[0];
-        }
-        boolean found = false;
-        List<String> result = new ArrayList<>();
-        for (MultiselectVariableDescriptor variableDescription : decisionTree.getVariableDescriptions()) {
-            if (found) {
-                result.add(variableDescription.getUuid());
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            if (tree == null) {
+                return new String[0];
             }
-            if (variableDescription.getUuid().equals(selectedId)) {
-                found = true;
+            boolean found = false;
+            List<String> result = new ArrayList<>();
+            for (MultiselectVariableDescriptor variableDescription : tree.getVariableDescriptions()) {
+                if (found) {
+                    result.add(variableDescription.getUuid());
+                }
+                if (variableDescription.getUuid().equals(selectedId)) {
+                    found = true;
+                }
             }
-        }
 
-        return result.toArray(new String[0]);
+            return result.toArray(new String[0]);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.GET_DEPENDING_VARIABLE_IDS, start);
+        }
     }
 
     /**
@@ -152,7 +372,12 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
 
     @Override
     public ParameterValue createValue(StaplerRequest2 staplerRequest, JSONObject jsonObject) {
-        return createValue(jsonObject);
+        long start = MultiselectMetrics.start();
+        try {
+            return createValue(jsonObject);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.CREATE_VALUE, start);
+        }
     }
 
     /**
@@ -180,35 +405,288 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
         MultiselectParameterValue multiselectParameterValue = new MultiselectParameterValue(getName());
         multiselectParameterValue.setSelectedValues(new HashMap<>());
 
-        if (decisionTree != null) {
+        MultiselectDecisionTree tree = getDecisionTree();
+        if (tree != null) {
             // create new parameter value
-            multiselectParameterValue.setSelectedValues(decisionTree.resolveValues(selectedValues));
+            multiselectParameterValue.setSelectedValues(tree.resolveValues(selectedValues));
         }
 
         return multiselectParameterValue;
     }
 
+    /**
+     * Create parameter value from request parameters, as sent when triggering a build using "buildWithParameters".
+     * Parameters are expected to be named like the variables and to contain item values, not indices.
+     * @param staplerRequest request containing variable values, may be {@code null}
+     * @return parameter value, default value in case the request does not contain any variable
+     * @throws IllegalArgumentException in case the values do not match a path in the decision tree
+     */
     @Override
     public ParameterValue createValue(StaplerRequest2 staplerRequest) {
-        return getDefaultParameterValue();
+        long start = MultiselectMetrics.start();
+        try {
+            MultiselectDecisionTree tree = getDecisionTree();
+            if (tree == null || staplerRequest == null) {
+                return getDefaultParameterValue();
+            }
+
+            // collect values of variables defined by this parameter
+            Map<String, String> values = new HashMap<>();
+            for (String variableName : tree.getVariableNames()) {
+                String value = staplerRequest.getParameter(variableName);
+                if (value != null) {
+                    values.put(variableName, value);
+                }
+            }
+
+            return values.isEmpty() ? getDefaultParameterValue() : createValueFromValues(values);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.CREATE_VALUE, start);
+        }
     }
 
     /**
-     * Get decision tree object containing all possible variable combinations.
+     * Create parameter value from CLI argument, a JSON object mapping variable names to item values, e.g.
+     * {@code {"SELECTED_SPORT":"Tennis","SELECTED_TEAM":"Oppumer TC"}}.
+     * @param command CLI command
+     * @param value   JSON object with variable values
+     * @return parameter value
+     * @throws IllegalArgumentException in case the argument is not a JSON object or the values do not match a path in
+     *                                  the decision tree
+     */
+    @Override
+    public ParameterValue createValue(CLICommand command, String value) {
+        long start = MultiselectMetrics.start();
+        try {
+            JSONObject jsonObject;
+            try {
+                jsonObject = JSONObject.fromObject(value);
+            } catch (JSONException exception) {
+                throw new IllegalArgumentException(Messages.MultiselectParameterDefinition_InvalidJson(getName()), exception);
+            }
+
+            Map<String, String> values = new HashMap<>();
+            for (Object key : jsonObject.keySet()) {
+                values.put(key.toString(), jsonObject.getString(key.toString()));
+            }
+            return createValueFromValues(values);
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.CREATE_VALUE, start);
+        }
+    }
+
+    /**
+     * Create parameter value from item values instead of item indices. Values have to be given for the variables
+     * of the first columns without gaps, so they form a path in the decision tree, which is resolved with one hash
+     * lookup per column.
+     * @param values item values by variable name, other entries are ignored
+     * @return parameter value
+     * @throws IllegalArgumentException in case the values do not match a path in the decision tree
+     */
+    public MultiselectParameterValue createValueFromValues(Map<String, String> values) {
+        MultiselectParameterValue multiselectParameterValue = new MultiselectParameterValue(getName());
+        multiselectParameterValue.setSelectedValues(new HashMap<>());
+
+        MultiselectDecisionTree tree = getDecisionTree();
+        if (tree == null) {
+            return multiselectParameterValue;
+        }
+
+        // collect values in order of columns until the first variable without value
+        List<String> variableNames = tree.getVariableNames();
+        List<String> path = new ArrayList<>();
+        for (String variableName : variableNames) {
+            String value = values.get(variableName);
+            if (value == null) {
+                break;
+            }
+            path.add(value);
+        }
+
+        // values following a gap can not be resolved
+        for (int column = path.size() + 1; column < variableNames.size(); ++column) {
+            if (values.containsKey(variableNames.get(column))) {
+                throw new IllegalArgumentException(Messages.MultiselectParameterDefinition_MissingValue(getName(), variableNames.get(path.size())));
+            }
+        }
+
+        Integer[] coordinates = tree.findCoordinates(path.toArray(new String[0]));
+        if (coordinates == null) {
+            throw new IllegalArgumentException(Messages.MultiselectParameterDefinition_InvalidValues(getName(), String.join(", ", path)));
+        }
+
+        // resolve values by indices, as done for values sent from the parameter form
+        Map<String, Integer> selectedValues = new HashMap<>();
+        for (int column = 0; column < coordinates.length; ++column) {
+            selectedValues.put(variableNames.get(column), coordinates[column]);
+        }
+        multiselectParameterValue.setSelectedValues(tree.resolveValues(selectedValues));
+        return multiselectParameterValue;
+    }
+
+    /**
+     * Get decision tree object containing all possible variable combinations. The tree is parsed from the persisted
+     * configuration on first access.
      * @return decision tree object containing all possible variable combinations
      */
     @CheckForNull
     public MultiselectDecisionTree getDecisionTree() {
-        return decisionTree;
+        MultiselectDecisionTree tree = dereference(materializedDecisionTree);
+        if (tree == null && configuration != null) {
+            synchronized (this) {
+                tree = dereference(materializedDecisionTree);
+                if (tree == null) {
+                    tree = parseDecisionTree(configuration);
+                    materializedDecisionTree = reference(tree);
+                }
+            }
+        }
+        return tree;
     }
 
     /**
-     * Set decision tree object containing all possible variable combinations.
+     * Set decision tree object containing all possible variable combinations. The definition keeps an immutable
+     * snapshot of the tree, which is compacted if compact decision trees have been enabled by system property. The
+     * given tree is not changed, see {@link MultiselectDecisionTree.Builder}.
      * @param decisionTree decision tree object containing all possible variable combinations
      */
     @DataBoundSetter
     public void setDecisionTree(@CheckForNull MultiselectDecisionTree decisionTree) {
-        this.decisionTree = decisionTree;
+        updateDecisionTree(decisionTree, false);
+    }
+
+    /**
+     * Keep snapshot of decision tree object and its serialized configuration for persistence in job configuration.
+     * @param decisionTree decision tree object containing all possible variable combinations
+     * @param owned        whether the tree is not used anywhere else, so the snapshot can take over its items
+     */
+    private synchronized void updateDecisionTree(@CheckForNull MultiselectDecisionTree decisionTree, boolean owned) {
+        MultiselectDecisionTree snapshot = snapshot(decisionTree, owned);
+        this.configuration = snapshot == null ? null : serializeDecisionTree(snapshot);
+        this.materializedDecisionTree = reference(snapshot);
+    }
+
+    /**
+     * Create immutable snapshot of a decision tree, compacted if enabled by system property.
+     * @param tree  decision tree object
+     * @param owned whether the tree is not used anywhere else, so its items are frozen in place instead of copied
+     * @return snapshot or {@code null}
+     */
+    @CheckForNull
+    private static MultiselectDecisionTree snapshot(@CheckForNull MultiselectDecisionTree tree, boolean owned) {
+        if (tree == null || tree.isFrozen()) {
+            return tree;
+        }
+        return tree.toBuilder().takeOwnership(owned).compact(COMPACT_TREES).build();
+    }
+
+    /**
+     * Check whether the decision tree is currently held in memory, without parsing the configuration.
+     * @return {@code true} if decision tree object exists
+     */
+    boolean isDecisionTreeMaterialized() {
+        return getMaterializedDecisionTree() != null;
+    }
+
+    /**
+     * Get decision tree object if it is currently held in memory, without parsing the configuration.
+     * @return decision tree object or {@code null} if it has not been parsed yet or has been dropped
+     */
+    @CheckForNull
+    MultiselectDecisionTree getMaterializedDecisionTree() {
+        return dereference(materializedDecisionTree);
+    }
+
+    /**
+     * Get length of the configuration persisted in job configuration.
+     * @return number of characters in configuration, 0 if there is none
+     */
+    int getConfigurationLength() {
+        String text = configuration;
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * Create a reference to a decision tree object, soft or strong depending on system property.
+     * @param tree decision tree object
+     * @return reference to decision tree object or {@code null}
+     */
+    @CheckForNull
+    private static Supplier<MultiselectDecisionTree> reference(@CheckForNull MultiselectDecisionTree tree) {
+        if (tree == null) {
+            return null;
+        }
+        if (SOFT_TREES) {
+            return new SoftReference<>(tree)::get;
+        }
+        return () -> tree;
+    }
+
+    /**
+     * Get decision tree object from reference.
+     * @param reference reference to decision tree object
+     * @return decision tree object or {@code null} if there is none or it has been dropped
+     */
+    @CheckForNull
+    private static MultiselectDecisionTree dereference(@CheckForNull Supplier<MultiselectDecisionTree> reference) {
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Serialize decision tree in configuration format.
+     * @param tree decision tree object
+     * @return serialized decision tree
+     */
+    private String serializeDecisionTree(@Nonnull MultiselectDecisionTree tree) {
+        // CSV text is kept by the tree itself, so the job configuration page can reuse it
+        if (getConfigurationFormat() == MultiselectConfigurationFormat.CSV) {
+            return tree.toString();
+        }
+
+        try {
+            return new MultiselectParameterParser(getConfigurationFormat()).serializeConfiguration(tree);
+        } catch (Exception exception) {
+            LOGGER.log(Level.WARNING, "Error serializing configuration", exception);
+            return "";
+        }
+    }
+
+    /**
+     * Parse decision tree from serialized configuration.
+     * @param serializedTree serialized decision tree
+     * @return immutable snapshot of decision tree
+     */
+    private MultiselectDecisionTree parseDecisionTree(@Nonnull String serializedTree) {
+        MultiselectDecisionTree tree;
+        try {
+            tree = new MultiselectParameterParser(getConfigurationFormat()).parseConfiguration(serializedTree);
+        } catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Error trying to parse configuration format.", exception);
+            tree = new MultiselectDecisionTree();
+        }
+        return snapshot(tree, true);
+    }
+
+    /**
+     * Get configuration format used for persistence, defaulting to CSV.
+     * @return configuration format
+     */
+    @Nonnull
+    private MultiselectConfigurationFormat getConfigurationFormat() {
+        return format != null ? format : MultiselectConfigurationFormat.CSV;
+    }
+
+    /**
+     * Migrate job configurations written by earlier versions, containing the decision tree as object graph.
+     * @return this object
+     */
+    @Serial
+    protected Object readResolve() {
+        if (decisionTree != null) {
+            updateDecisionTree(decisionTree, true);
+            decisionTree = null;
+        }
+        return this;
     }
 
     /**
@@ -225,8 +703,11 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
      * @param format content/parser format
      */
     @DataBoundSetter
-    public void setFormat(@CheckForNull MultiselectConfigurationFormat format) {
+    public synchronized void setFormat(@CheckForNull MultiselectConfigurationFormat format) {
+        // serialize decision tree again in new format
+        MultiselectDecisionTree tree = getDecisionTree();
         this.format = format;
+        updateDecisionTree(tree, false);
     }
 
     /**
@@ -240,36 +721,79 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
     @Extension
     @Symbol({"multiselect"})
     public static class DescriptorImpl extends ParameterDescriptor {
+        /** Maximum estimated size of trees in validation cache in bytes, can be changed using a system property. */
+        private static final long VALIDATION_CACHE_SIZE = SystemProperties.getLong(DescriptorImpl.class.getName() + ".validationCacheSize", 16L * 1024 * 1024);
+
+        /** Format to persist new parameter definitions in, defaults to the format entered in the form. */
+        private static final MultiselectConfigurationFormat PERSISTENCE_FORMAT = persistenceFormat(SystemProperties.getString(DescriptorImpl.class.getName() + ".persistenceFormat"));
+
+        /** Configurations parsed during validation, to be reused when saving the job configuration. */
+        private final transient MultiselectConfigurationCache validationCache = new MultiselectConfigurationCache(VALIDATION_CACHE_SIZE);
+
         /**
          * Validate configuration data entered in job configuration form when "configuration" text field loses focus.
+         * If the job already defines a parameter of the same name, unchanged parts of its decision tree are reused.
+         * Parsed configurations are cached, so only users allowed to configure the job (or administrators, if there
+         * is no job) may validate configurations.
+         * @param job   job being configured, {@code null} if not configuring a job
+         * @param name  parameter name entered in text box
          * @param value configuration text entered in text box
          * @return form validation result
          * @throws IOException in case a problem occurred while trying to read configuration
          */
         @POST
-        public FormValidation doCheckConfiguration(@QueryParameter String value) throws IOException {
-            // empty configuration is not useful, parameter can just as well be removed
-            if (Util.fixEmptyAndTrim(value) == null) {
-                return FormValidation.error(Messages.FormValidation_ConfigurationIsEmpty());
+        public FormValidation doCheckConfiguration(@AncestorInPath Job<?, ?> job, @QueryParameter String name, @QueryParameter String value) throws IOException {
+            if (job != null) {
+                job.checkPermission(Item.CONFIGURE);
+            } else {
+                Jenkins.get().checkPermission(Jenkins.ADMINISTER);
             }
+            return checkConfiguration(job, name, value);
+        }
 
-            // create new parameter parser instance
-            MultiselectParameterParser parser = new MultiselectParameterParser(MultiselectConfigurationFormat.CSV);
+        /**
+         * Validate configuration data, parsing it unless it has been validated before. The parsed tree is kept for
+         * saving the job configuration.
+         * @param job   job being configured, {@code null} if not configuring a job
+         * @param name  parameter name entered in text box
+         * @param value configuration text entered in text box
+         * @return form validation result
+         * @throws IOException in case a problem occurred while trying to read configuration
+         */
+        FormValidation checkConfiguration(@CheckForNull Job<?, ?> job, @CheckForNull String name, String value) throws IOException {
+            long start = MultiselectMetrics.start();
+            try {
+                // empty configuration is not useful, parameter can just as well be removed
+                if (Util.fixEmptyAndTrim(value) == null) {
+                    return FormValidation.error(Messages.FormValidation_ConfigurationIsEmpty());
+                }
 
-            // parse the configuration
-            parser.parseConfiguration(value);
+                // fetch validation result string, parsing the configuration unless it has been validated before
+                MultiselectConfigurationCache.Entry entry = validationCache.get(value);
+                String validation;
+                if (entry != null) {
+                    validation = entry.getValidationResult();
+                } else {
+                    // create new parameter parser instance
+                    MultiselectParameterParser parser = new MultiselectParameterParser(MultiselectConfigurationFormat.CSV);
+
+                    // parse the configuration and keep the result for saving the configuration
+                    MultiselectDecisionTree decisionTree = parser.parseConfiguration(value, previousDecisionTree(job, name));
+                    validation = parser.getValidationResult();
+                    validationCache.put(value, decisionTree, validation);
+                }
 
-            // fetch validation result string
-            String validation = parser.getValidationResult();
+                // if a problem has been found...
+                if (validation != null) {
+                    // ... create form validation using message string
+                    return FormValidation.warning(validation);
+                }
 
-            // if a problem has been found...
-            if (validation != null) {
-                // ... create form validation using message string
-                return FormValidation.warning(validation);
+                // otherwise parser did not find any problems
+                return FormValidation.ok();
+            } finally {
+                MultiselectMetrics.stop(MultiselectMetrics.Operation.CHECK_CONFIGURATION, start);
             }
-
-            // otherwise parser did not find any problems
-            return FormValidation.ok();
         }
 
         @Override
@@ -280,10 +804,53 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
 
         @Override
         public ParameterDefinition newInstance(@Nullable StaplerRequest2 req, @Nonnull JSONObject formData) {
-            // currently only CSV configuration format is implemented
-            MultiselectConfigurationFormat format = MultiselectConfigurationFormat.CSV;
+            long start = MultiselectMetrics.start();
+            try {
+                // currently only CSV configuration format is implemented
+                MultiselectConfigurationFormat format = MultiselectConfigurationFormat.CSV;
+
+                String configuration = formData.getString("configuration");
+                String name = formData.getString(PARAMETER_NAME);
+
+                // definition of the same parameter before the job configuration has been edited
+                MultiselectDecisionTree previous = previousDecisionTree(req != null ? req.findAncestorObject(Job.class) : null, name);
+
+                // reuse the decision tree parsed while validating the same configuration
+                MultiselectConfigurationCache.Entry entry = validationCache.take(configuration);
+                if (entry != null) {
+                    return createDefinition(entry.getDecisionTree(), name, formData.getString("description"), format, previous);
+                }
+
+                return newInstance(configuration, name, formData.getString("description"), new MultiselectParameterParser(format), previous);
+            } finally {
+                MultiselectMetrics.stop(MultiselectMetrics.Operation.NEW_INSTANCE, start);
+            }
+        }
+
+        /**
+         * Determine format to persist new parameter definitions in.
+         * @param name format name from system property
+         * @return configuration format or {@code null} to use the format entered in the form
+         */
+        @CheckForNull
+        private static MultiselectConfigurationFormat persistenceFormat(@CheckForNull String name) {
+            if (name == null) {
+                return null;
+            }
+            try {
+                return MultiselectConfigurationFormat.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException exception) {
+                LOGGER.log(Level.WARNING, "Unknown configuration format {0}, using format entered in form.", name);
+                return null;
+            }
+        }
 
-            return newInstance(formData.getString("configuration"), formData.getString(PARAMETER_NAME), formData.getString("description"), new MultiselectParameterParser(format));
+        /**
+         * Get cache of configurations parsed during validation, providing hit rate and eviction statistics.
+         * @return validation cache
+         */
+        public MultiselectConfigurationCache getValidationCache() {
+            return validationCache;
         }
 
         /**
@@ -295,20 +862,71 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
          * @return new parameter definition
          */
         public static MultiselectParameterDefinition newInstance(String configuration, String name, String description, MultiselectParameterParser multiselectParameterParser) {
+            return newInstance(configuration, name, description, multiselectParameterParser, null);
+        }
+
+        /**
+         * Create new parameter definition object from configuration form, reusing unchanged parts of the decision tree
+         * of the previous version of the parameter definition.
+         * @param configuration              configuration data from job configuration page as string
+         * @param name                       name of configuration parameter
+         * @param description                description of configuration parameter
+         * @param multiselectParameterParser parser used to create new configuration
+         * @param previous                   decision tree of previous version, {@code null} if there is none
+         * @return new parameter definition
+         */
+        static MultiselectParameterDefinition newInstance(String configuration, String name, String description, MultiselectParameterParser multiselectParameterParser, @CheckForNull MultiselectDecisionTree previous) {
             MultiselectDecisionTree multiselectDecisionTree;
 
             try {
                 // parse configuration as object tree
-                multiselectDecisionTree = multiselectParameterParser.parseConfiguration(configuration);
+                multiselectDecisionTree = multiselectParameterParser.parseConfiguration(configuration, previous);
             } catch (IOException exception) {
                 LOGGER.log(Level.WARNING, "Error trying to parse configuration format.");
                 multiselectDecisionTree = new MultiselectDecisionTree();
             }
 
-            // create parameter definition
+            return createDefinition(multiselectDecisionTree, name, description, multiselectParameterParser.getFormat(), previous);
+        }
+
+        /**
+         * Find decision tree of the parameter definition that is being replaced when saving a job configuration. Trees
+         * that are not held in memory are not parsed again, as that would take longer than parsing the new version.
+         * @param job  job being configured, {@code null} if not configuring a job
+         * @param name parameter name
+         * @return decision tree of previous version of the parameter definition, {@code null} if there is none
+         */
+        @CheckForNull
+        static MultiselectDecisionTree previousDecisionTree(@CheckForNull Job<?, ?> job, @CheckForNull String name) {
+            if (job == null || name == null) {
+                return null;
+            }
+            ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                return null;
+            }
+            ParameterDefinition definition = property.getParameterDefinition(name);
+            return definition instanceof MultiselectParameterDefinition multiselectDefinition ? multiselectDefinition.getMaterializedDecisionTree() : null;
+        }
+
+        /**
+         * Create new parameter definition object from parsed configuration.
+         * @param decisionTree parsed configuration
+         * @param name         name of configuration parameter
+         * @param description  description of configuration parameter
+         * @param format       configuration format
+         * @param previous     decision tree of previous version, {@code null} if there is none
+         * @return new parameter definition
+         */
+        private static MultiselectParameterDefinition createDefinition(MultiselectDecisionTree decisionTree, String name, String description, MultiselectConfigurationFormat format, @CheckForNull MultiselectDecisionTree previous) {
+            // select boxes of unchanged columns keep their identifiers
+            if (previous != null && !decisionTree.isFrozen()) {
+                decisionTree.keepVariableUuids(previous);
+            }
             MultiselectParameterDefinition multiselectParameterDefinition = new MultiselectParameterDefinition(name, description);
-            multiselectParameterDefinition.setDecisionTree(multiselectDecisionTree);
-            multiselectParameterDefinition.setFormat(multiselectParameterParser.getFormat());
+            multiselectParameterDefinition.setFormat(PERSISTENCE_FORMAT != null ? PERSISTENCE_FORMAT : format);
+            // tree has been parsed for the new definition (or taken from the validation cache), so it can be taken over
+            multiselectParameterDefinition.updateDecisionTree(decisionTree, true);
             return multiselectParameterDefinition;
         }
     }
@@ -326,14 +944,18 @@ public class MultiselectParameterDefinition extends ParameterDefinition {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof MultiselectParameterDefinition)) {
+        if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        return super.equals(o);
+
+        // compare persisted fields directly instead of serializing both definitions to XML
+        MultiselectParameterDefinition that = (MultiselectParameterDefinition) o;
+        return Objects.equals(getName(), that.getName()) && Objects.equals(getDescription(), that.getDescription()) && Objects.equals(uuid, that.uuid)
+                && format == that.format && Objects.equals(configuration, that.configuration);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(decisionTree, uuid);
+        return Objects.hash(configuration, uuid);
     }
 }
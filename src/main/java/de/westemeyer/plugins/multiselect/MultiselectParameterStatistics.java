@@ -0,0 +1,148 @@
+package de.westemeyer.plugins.multiselect;
+
+/**
+ * Gauges describing the decision tree of one parameter definition, shown on the diagnostics page and returned by its
+ * JSON endpoint. Collecting statistics never parses a configuration, so trees that have not been materialized (or
+ * have been dropped under memory pressure) only report the length of their configuration. Sizes are estimated per
+ * tree, so strings shared between trees through the {@link MultiselectStringPool} count for each of them.
+ */
+public final class MultiselectParameterStatistics {
+    /** Full name of the job defining the parameter. */
+    private final String jobName;
+
+    /** Name of the parameter. */
+    private final String parameterName;
+
+    /** Number of characters in persisted configuration. */
+    private final int configurationLength;
+
+    /** Whether the decision tree is currently held in memory. */
+    private final boolean materialized;
+
+    /** Number of items in decision tree, -1 if tree is not materialized. */
+    private final long nodeCount;
+
+    /** Number of items without children, -1 if tree is not materialized. */
+    private final long leafCount;
+
+    /** Number of levels in decision tree, -1 if tree is not materialized. */
+    private final int depth;
+
+    /** Ratio of string objects holding the same characters as another string object, 0 if tree is not materialized. */
+    private final double duplicateStringRatio;
+
+    /** Estimated number of bytes retained by the decision tree, -1 if tree is not materialized. */
+    private final long estimatedBytes;
+
+    /**
+     * Create new statistics object.
+     * @param jobName              full name of the job defining the parameter
+     * @param parameterName        name of the parameter
+     * @param configurationLength  number of characters in persisted configuration
+     * @param materialized         whether the decision tree is currently held in memory
+     * @param nodeCount            number of items in decision tree
+     * @param leafCount            number of items without children
+     * @param depth                number of levels in decision tree
+     * @param duplicateStringRatio ratio of string objects holding the same characters as another string object
+     * @param estimatedBytes       estimated number of bytes retained by the decision tree
+     */
+    MultiselectParameterStatistics(String jobName, String parameterName, int configurationLength, boolean materialized, long nodeCount, long leafCount, int depth, double duplicateStringRatio, long estimatedBytes) {
+        this.jobName = jobName;
+        this.parameterName = parameterName;
+        this.configurationLength = configurationLength;
+        this.materialized = materialized;
+        this.nodeCount = nodeCount;
+        this.leafCount = leafCount;
+        this.depth = depth;
+        this.duplicateStringRatio = duplicateStringRatio;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Collect statistics of a parameter definition without parsing its configuration.
+     * @param jobName    full name of the job defining the parameter
+     * @param definition parameter definition
+     * @return statistics of the parameter definition
+     */
+    public static MultiselectParameterStatistics of(String jobName, MultiselectParameterDefinition definition) {
+        MultiselectDecisionTree tree = definition.getMaterializedDecisionTree();
+        if (tree == null) {
+            return new MultiselectParameterStatistics(jobName, definition.getName(), definition.getConfigurationLength(), false, -1, -1, -1, 0, -1);
+        }
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator().add(tree);
+        return new MultiselectParameterStatistics(jobName, definition.getName(), definition.getConfigurationLength(), true, estimator.getNodeCount(), estimator.getLeafCount(), tree.getVariableDescriptions().size(), estimator.getDuplicateStringRatio(), estimator.getBytes());
+    }
+
+    /**
+     * Get full name of the job defining the parameter.
+     * @return full name of the job
+     */
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * Get name of the parameter.
+     * @return name of the parameter
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * Get number of characters in persisted configuration.
+     * @return number of characters in configuration
+     */
+    public int getConfigurationLength() {
+        return configurationLength;
+    }
+
+    /**
+     * Whether the decision tree is currently held in memory.
+     * @return {@code true} if the decision tree has been parsed and not been dropped
+     */
+    public boolean isMaterialized() {
+        return materialized;
+    }
+
+    /**
+     * Get number of items in decision tree.
+     * @return number of items, -1 if tree is not materialized
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get number of items without children.
+     * @return number of leaf items, -1 if tree is not materialized
+     */
+    public long getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Get number of levels in decision tree.
+     * @return number of levels, -1 if tree is not materialized
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get ratio of string objects holding the same characters as another string object. Trees with a high ratio get
+     * considerably smaller when compacted.
+     * @return ratio between 0 and 1, 0 if tree is not materialized
+     */
+    public double getDuplicateStringRatio() {
+        return duplicateStringRatio;
+    }
+
+    /**
+     * Get estimated number of bytes retained by the decision tree.
+     * @return estimated size in bytes, -1 if tree is not materialized
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+}
@@ -0,0 +1,53 @@
+package de.westemeyer.plugins.multiselect;
+
+/**
+ * Result of a search in the display labels of one select box, returned to selects.js as JSON object. Indices are
+ * the positions of the matching items in the complete item list, so they can be used as option values just like the
+ * indices of unfiltered lists.
+ */
+public final class MultiselectSearchResult {
+    /** Item indices of matching labels. */
+    private final int[] indices;
+
+    /** Matching display labels. */
+    private final String[] labels;
+
+    /** Whether all matching labels are included. */
+    private final boolean complete;
+
+    /**
+     * Create new search result.
+     * @param indices  item indices of matching labels
+     * @param labels   matching display labels, in the same order as the indices
+     * @param complete whether all matching labels are included
+     */
+    MultiselectSearchResult(int[] indices, String[] labels, boolean complete) {
+        this.indices = indices;
+        this.labels = labels;
+        this.complete = complete;
+    }
+
+    /**
+     * Get item indices of matching labels.
+     * @return item indices of matching labels
+     */
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * Get matching display labels.
+     * @return matching display labels, in the same order as the indices
+     */
+    public String[] getLabels() {
+        return labels.clone();
+    }
+
+    /**
+     * Whether all matching labels are included, or the number of matches has been limited.
+     * @return whether all matching labels are included
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,130 @@
+package de.westemeyer.plugins.multiselect;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controller-wide pool of canonical string instances for labels and values of decision items. Configurations tend
+ * to repeat the same values many times, within one tree as well as across jobs. Routing strings through the pool
+ * lets all equal labels and values share one instance. Strings are only weakly referenced, so they are removed
+ * from the pool as soon as no decision item uses them anymore.
+ * <p>
+ * The pool is split into stripes by hash code, each guarded by its own lock, so tree builders parsing partitions of a
+ * configuration in parallel rarely wait for each other.
+ */
+public final class MultiselectStringPool {
+    /** Estimated size of a string object and its (compact, latin-1) character array without characters. */
+    private static final int STRING_OVERHEAD = 40;
+
+    /** Number of stripes, a power of two. */
+    private static final int STRIPES = 64;
+
+    /** Canonical instances, weakly referenced as keys and values, one map per stripe. */
+    private static final Map<String, WeakReference<String>>[] POOL = createStripes();
+
+    /** Number of strings that have been found in pool. */
+    private static final LongAdder HITS = new LongAdder();
+
+    /** Number of strings that have been added to pool. */
+    private static final LongAdder MISSES = new LongAdder();
+
+    /** Estimated number of bytes saved by replacing equal strings with their canonical instance. */
+    private static final LongAdder BYTES_SAVED = new LongAdder();
+
+    /**
+     * Private constructor for utility class.
+     */
+    private MultiselectStringPool() {
+    }
+
+    /**
+     * Create empty maps for all stripes.
+     * @return array of weak hash maps
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, WeakReference<String>>[] createStripes() {
+        Map<String, WeakReference<String>>[] stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; ++i) {
+            stripes[i] = new WeakHashMap<>();
+        }
+        return stripes;
+    }
+
+    /**
+     * Get map of the stripe a string belongs to, spreading the higher bits of the hash code like hash maps do.
+     * @param value string value
+     * @return map of stripe
+     */
+    private static Map<String, WeakReference<String>> stripe(String value) {
+        int hash = value.hashCode();
+        return POOL[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Get canonical instance for a string, adding the string to the pool if it is not yet known.
+     * @param value string value, may be {@code null}
+     * @return canonical instance of equal string or {@code null}
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Map<String, WeakReference<String>> stripe = stripe(value);
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String canonical = reference == null ? null : reference.get();
+            if (canonical != null) {
+                HITS.increment();
+                if (canonical != value) {
+                    BYTES_SAVED.add(STRING_OVERHEAD + value.length());
+                }
+                return canonical;
+            }
+            stripe.put(value, new WeakReference<>(value));
+        }
+        MISSES.increment();
+        return value;
+    }
+
+    /**
+     * Get number of strings that have been found in pool.
+     * @return number of pool hits
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * Get number of strings that have been added to pool.
+     * @return number of pool misses
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Get estimated number of bytes saved by replacing equal strings with their canonical instance, assuming compact
+     * (one byte per character) strings.
+     * @return estimated number of bytes saved
+     */
+    public static long getBytesSaved() {
+        return BYTES_SAVED.sum();
+    }
+
+    /**
+     * Get number of canonical strings currently in pool.
+     * @return number of canonical strings
+     */
+    public static int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : POOL) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
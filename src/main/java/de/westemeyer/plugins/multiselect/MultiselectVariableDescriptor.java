@@ -1,11 +1,13 @@
 package de.westemeyer.plugins.multiselect;
 
+import jenkins.util.SystemProperties;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Descriptor object for a target variable.
@@ -15,6 +17,9 @@ public class MultiselectVariableDescriptor implements Serializable {
     @Serial
     private static final long serialVersionUID = -3664707568849231781L;
 
+    /** Minimum number of items in a select box to offer searching, can be changed using a system property. */
+    private static final int SEARCH_THRESHOLD = SystemProperties.getInteger(MultiselectVariableDescriptor.class.getName() + ".searchThreshold", 100);
+
     /** Variable label. */
     private String label;
 
@@ -25,11 +30,21 @@ public class MultiselectVariableDescriptor implements Serializable {
     private int columnIndex;
 
     /** UUID for use in HTML view. */
-    private final String uuid = UUIDGenerator.generateUUID(30);
+    private final String uuid;
 
-    /** List of initial values. */
+    /** List of initial values, only read from job configurations written by earlier versions. */
+    @Deprecated
     private List<MultiselectDecisionItem> initialValues;
 
+    /** Decision tree this variable belongs to, used to determine initial values on demand. */
+    private transient MultiselectDecisionTree decisionTree;
+
+    /** List of initial values, determined from decision tree on first use. */
+    private transient volatile List<MultiselectDecisionItem> cachedInitialValues;
+
+    /** Whether this descriptor belongs to an immutable snapshot of a decision tree. */
+    private transient boolean frozen;
+
     /**
      * Create new variable description object.
      * @param label        variable label
@@ -39,6 +54,17 @@ public class MultiselectVariableDescriptor implements Serializable {
     public MultiselectVariableDescriptor(String label, String variableName) {
         this.label = label;
         this.variableName = variableName;
+        this.uuid = UUIDGenerator.generateUUID(30);
+    }
+
+    /**
+     * Create copy of a variable description object, keeping its UUID, so select boxes keep their HTML identifiers.
+     * @param source variable description object to copy
+     */
+    MultiselectVariableDescriptor(MultiselectVariableDescriptor source) {
+        this.label = source.label;
+        this.variableName = source.variableName;
+        this.uuid = source.uuid;
     }
 
     /**
@@ -55,6 +81,7 @@ public class MultiselectVariableDescriptor implements Serializable {
      */
     @DataBoundSetter
     public void setLabel(String label) {
+        checkMutable();
         this.label = label;
     }
 
@@ -72,6 +99,7 @@ public class MultiselectVariableDescriptor implements Serializable {
      */
     @DataBoundSetter
     public void setVariableName(String variableName) {
+        checkMutable();
         this.variableName = variableName;
     }
 
@@ -80,15 +108,39 @@ public class MultiselectVariableDescriptor implements Serializable {
      * @param initialValues initial values for this variable
      */
     public void setInitialValues(List<MultiselectDecisionItem> initialValues) {
-        this.initialValues = initialValues;
+        checkMutable();
+        this.cachedInitialValues = initialValues;
     }
 
     /**
-     * Get initial values for this variable.
+     * Get initial values for this variable, determining them from the decision tree on first use.
      * @return initial values for this variable
      */
     public List<MultiselectDecisionItem> getInitialValues() {
-        return initialValues;
+        List<MultiselectDecisionItem> values = cachedInitialValues;
+        if (values == null && decisionTree != null) {
+            values = decisionTree.getInitialValuesForColumn(columnIndex);
+            cachedInitialValues = values;
+        }
+        return values;
+    }
+
+    /**
+     * Set decision tree this variable belongs to, discarding initial values determined so far.
+     * @param decisionTree decision tree this variable belongs to
+     */
+    void setDecisionTree(MultiselectDecisionTree decisionTree) {
+        checkMutable();
+        this.decisionTree = decisionTree;
+        this.cachedInitialValues = null;
+    }
+
+    /**
+     * Whether select boxes of this variable can contain so many items that a search field is displayed to filter them.
+     * @return whether a search field is displayed for this variable
+     */
+    public boolean isSearchable() {
+        return decisionTree != null && decisionTree.getMaxItemCount(columnIndex) >= SEARCH_THRESHOLD;
     }
 
     /**
@@ -112,6 +164,72 @@ public class MultiselectVariableDescriptor implements Serializable {
      * @param columnIndex the new column index
      */
     public void setColumnIndex(int columnIndex) {
+        checkMutable();
         this.columnIndex = columnIndex;
+        this.cachedInitialValues = null;
+    }
+
+    /**
+     * Make this descriptor read-only.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Make sure this descriptor does not belong to a snapshot before changing it.
+     */
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException(MultiselectDecisionTree.READ_ONLY);
+        }
+    }
+
+    /**
+     * Add size of this descriptor and its strings to a memory estimator. Initial values are items of the tree and
+     * counted there.
+     * @param estimator memory estimator
+     */
+    void estimateSize(MultiselectMemoryEstimator estimator) {
+        // fields: label, variable name, uuid, initial values, decision tree, cached initial values, column index and
+        // frozen flag
+        if (estimator.object(this, 6, Integer.BYTES + 1)) {
+            estimator.string(label);
+            estimator.string(variableName);
+            estimator.string(uuid);
+        }
+    }
+
+    /**
+     * Variable descriptors are equal if they have the same label and variable name. The generated UUID, column index
+     * and initial values are not compared.
+     * @param o object to compare to
+     * @return whether the object is a variable descriptor with the same content
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MultiselectVariableDescriptor)) {
+            return false;
+        }
+        MultiselectVariableDescriptor that = (MultiselectVariableDescriptor) o;
+        return Objects.equals(label, that.label) && Objects.equals(variableName, that.variableName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(label, variableName);
+    }
+
+    /**
+     * Drop initial values read from job configurations written by earlier versions.
+     * @return this object
+     */
+    @Serial
+    private Object readResolve() {
+        initialValues = null;
+        return this;
     }
 }
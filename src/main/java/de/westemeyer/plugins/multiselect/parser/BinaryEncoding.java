@@ -0,0 +1,69 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and helper methods shared by binary configuration parser and writer.
+ *
+ * <p>The layout of a binary configuration is:</p>
+ * <ul>
+ *     <li>magic bytes {@code MSP} and a format version byte,</li>
+ *     <li>string table: number of strings, then per string its UTF-8 length and bytes,</li>
+ *     <li>variable descriptors: number of descriptors, then per descriptor label and variable name,</li>
+ *     <li>item tree in depth first order: number of items in list, then per item label, value and (recursively) the
+ *     list of its children.</li>
+ * </ul>
+ * <p>All numbers are unsigned varints. Strings are referenced by their position in the string table plus one, zero
+ * stands for {@code null}.</p>
+ */
+final class BinaryEncoding {
+    /** Magic bytes at start of binary configuration. */
+    static final byte[] MAGIC = {'M', 'S', 'P'};
+
+    /** Current version of binary layout. */
+    static final int VERSION = 1;
+
+    /**
+     * Private constructor for utility class.
+     */
+    private BinaryEncoding() {
+    }
+
+    /**
+     * Write an unsigned varint, seven bits per byte, least significant bits first.
+     * @param output output to write to
+     * @param value  non-negative value to write
+     * @throws IOException in case writing fails
+     */
+    static void writeVarint(DataOutput output, int value) throws IOException {
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            output.writeByte((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        output.writeByte(rest);
+    }
+
+    /**
+     * Read an unsigned varint.
+     * @param input input to read from
+     * @return value read
+     * @throws IOException in case reading fails or the value does not fit into a non-negative int
+     */
+    static int readVarint(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int next = input.readUnsignedByte();
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint in binary configuration");
+    }
+}
@@ -0,0 +1,136 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.Messages;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.MultiselectVariableDescriptor;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parser implementation to use for binary configuration type, see {@link BinaryEncoding} for the layout.
+ */
+public class BinaryParser implements ConfigParser {
+    /** Logger for binary parser. */
+    private static final Logger LOGGER = Logger.getLogger(BinaryParser.class.getName());
+
+    /** Upper bound for initial capacity of lists, so corrupt counts do not allocate huge arrays up front. */
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    /**
+     * Maximum nesting depth of items. Trees may be deeper than the number of variable descriptors, e.g. if rows have
+     * more columns than the header, so the limit is fixed instead. It is far beyond any useful number of select boxes,
+     * but keeps corrupt or crafted input from overflowing the stack while reading (or later walking) the tree.
+     */
+    static final int MAX_DEPTH = 1000;
+
+    /** Form validation result, null if everything is OK. */
+    private String validationResult = null;
+
+    /**
+     * Read binary configuration and transform it into a tree representation of values.
+     * @param config configuration input stream
+     * @return tree of variable values, empty in case the configuration is invalid
+     */
+    @Override
+    public MultiselectDecisionTree analyzeConfiguration(InputStream config) {
+        MultiselectDecisionTree decisionTree = new MultiselectDecisionTree();
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(config));
+
+            // check magic bytes and version
+            byte[] magic = new byte[BinaryEncoding.MAGIC.length];
+            input.readFully(magic);
+            if (!Arrays.equals(BinaryEncoding.MAGIC, magic) || input.readUnsignedByte() != BinaryEncoding.VERSION) {
+                throw new IOException("Unknown binary configuration version");
+            }
+
+            // read string table
+            int stringCount = BinaryEncoding.readVarint(input);
+            List<String> strings = new ArrayList<>(Math.min(stringCount, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < stringCount; ++i) {
+                int length = BinaryEncoding.readVarint(input);
+                byte[] bytes = input.readNBytes(length);
+                if (bytes.length != length) {
+                    throw new EOFException();
+                }
+                strings.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            // read variable descriptors
+            int descriptorCount = BinaryEncoding.readVarint(input);
+            List<MultiselectVariableDescriptor> variableDescriptions = new ArrayList<>(Math.min(descriptorCount, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < descriptorCount; ++i) {
+                MultiselectVariableDescriptor descriptor = new MultiselectVariableDescriptor(readReference(input, strings), readReference(input, strings));
+                descriptor.setColumnIndex(i);
+                variableDescriptions.add(descriptor);
+            }
+
+            // read item tree
+            List<MultiselectDecisionItem> items = readItems(input, strings, 0);
+
+            decisionTree.setItemList(items);
+            decisionTree.setVariableDescriptions(variableDescriptions);
+        } catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Unable to read binary configuration", exception);
+            validationResult = Messages.FormValidation_InvalidBinaryConfiguration();
+            decisionTree = new MultiselectDecisionTree();
+        }
+        return decisionTree;
+    }
+
+    /**
+     * Read a list of items and (recursively) their children.
+     * @param input   input to read from
+     * @param strings string table
+     * @param depth   column index of the items
+     * @return list of items
+     * @throws IOException in case reading fails or data is invalid
+     */
+    private static List<MultiselectDecisionItem> readItems(DataInputStream input, List<String> strings, int depth) throws IOException {
+        int count = BinaryEncoding.readVarint(input);
+        if (count > 0 && depth >= MAX_DEPTH) {
+            throw new IOException("Items of binary configuration are nested too deeply");
+        }
+        List<MultiselectDecisionItem> items = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < count; ++i) {
+            MultiselectDecisionItem item = new MultiselectDecisionItem(readReference(input, strings), readReference(input, strings));
+            List<MultiselectDecisionItem> children = readItems(input, strings, depth + 1);
+            if (!children.isEmpty()) {
+                item.setChildren(children);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Read reference to a string in string table.
+     * @param input   input to read from
+     * @param strings string table
+     * @return referenced string or {@code null}
+     * @throws IOException in case reading fails or reference is invalid
+     */
+    private static String readReference(DataInputStream input, List<String> strings) throws IOException {
+        int reference = BinaryEncoding.readVarint(input);
+        if (reference > strings.size()) {
+            throw new IOException("Invalid string reference in binary configuration");
+        }
+        return reference == 0 ? null : strings.get(reference - 1);
+    }
+
+    @Override
+    public String getValidationResult() {
+        return validationResult;
+    }
+}
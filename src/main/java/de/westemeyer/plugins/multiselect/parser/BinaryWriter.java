@@ -0,0 +1,104 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.MultiselectVariableDescriptor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer class to store tree in binary format, see {@link BinaryEncoding} for the layout.
+ */
+public class BinaryWriter implements ConfigSerialization {
+    /**
+     * Serialize a variable content tree in binary format.
+     * @param decisionTree the content tree to write
+     * @param outputStream the output stream to write to, remains open
+     * @throws Exception in case writing to the output stream fails
+     */
+    @Override
+    public void serialize(MultiselectDecisionTree decisionTree, OutputStream outputStream) throws Exception {
+        // collect distinct strings in order of first use
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (MultiselectVariableDescriptor descriptor : decisionTree.getVariableDescriptions()) {
+            addString(strings, descriptor.getLabel());
+            addString(strings, descriptor.getVariableName());
+        }
+        decisionTree.visitSubTree((item, column) -> {
+            addString(strings, item.getLabel());
+            addString(strings, item.getValue());
+            return true;
+        });
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.write(BinaryEncoding.MAGIC);
+        output.writeByte(BinaryEncoding.VERSION);
+
+        // write string table
+        BinaryEncoding.writeVarint(output, strings.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            BinaryEncoding.writeVarint(output, bytes.length);
+            output.write(bytes);
+        }
+
+        // write variable descriptors
+        List<MultiselectVariableDescriptor> descriptors = decisionTree.getVariableDescriptions();
+        BinaryEncoding.writeVarint(output, descriptors.size());
+        for (MultiselectVariableDescriptor descriptor : descriptors) {
+            writeReference(output, strings, descriptor.getLabel());
+            writeReference(output, strings, descriptor.getVariableName());
+        }
+
+        // write item tree
+        writeItems(output, strings, decisionTree.getItemList());
+
+        // flush buffer without closing the caller's output stream
+        output.flush();
+    }
+
+    /**
+     * Write a list of items and (recursively) their children.
+     * @param output  output to write to
+     * @param strings string table
+     * @param items   items to write
+     * @throws IOException in case writing fails
+     */
+    private static void writeItems(DataOutputStream output, Map<String, Integer> strings, List<MultiselectDecisionItem> items) throws IOException {
+        BinaryEncoding.writeVarint(output, items.size());
+        for (MultiselectDecisionItem item : items) {
+            writeReference(output, strings, item.getLabel());
+            writeReference(output, strings, item.getValue());
+            writeItems(output, strings, item.getChildren());
+        }
+    }
+
+    /**
+     * Add string to string table unless it is {@code null} or already known.
+     * @param strings string table
+     * @param string  string to add
+     */
+    private static void addString(Map<String, Integer> strings, String string) {
+        if (string != null) {
+            strings.putIfAbsent(string, strings.size());
+        }
+    }
+
+    /**
+     * Write reference to a string in string table.
+     * @param output  output to write to
+     * @param strings string table
+     * @param string  referenced string
+     * @throws IOException in case writing fails
+     */
+    private static void writeReference(DataOutputStream output, Map<String, Integer> strings, String string) throws IOException {
+        BinaryEncoding.writeVarint(output, string == null ? 0 : strings.get(string) + 1);
+    }
+}
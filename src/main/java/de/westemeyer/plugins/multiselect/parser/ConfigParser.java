@@ -2,6 +2,7 @@ package de.westemeyer.plugins.multiselect.parser;
 
 import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
 
+import javax.annotation.CheckForNull;
 import java.io.InputStream;
 
 /**
@@ -15,6 +16,17 @@ public interface ConfigParser {
      */
     MultiselectDecisionTree analyzeConfiguration(InputStream config);
 
+    /**
+     * Analyse new version of a configuration and transform it into config tree, reusing unchanged parts of the tree
+     * of the previous version if the parser supports it. By default, the configuration is parsed from scratch.
+     * @param config   configuration input stream
+     * @param previous config tree of previous version of the configuration, {@code null} if there is none
+     * @return config tree
+     */
+    default MultiselectDecisionTree analyzeConfiguration(InputStream config, @CheckForNull MultiselectDecisionTree previous) {
+        return analyzeConfiguration(config);
+    }
+
     /**
      * Get validation result, problems, etc.
      * @return validation result
@@ -3,10 +3,12 @@ package de.westemeyer.plugins.multiselect.parser;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import de.westemeyer.plugins.multiselect.Messages;
-import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
 import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.MultiselectMetrics;
 import de.westemeyer.plugins.multiselect.MultiselectVariableDescriptor;
+import jenkins.util.SystemProperties;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -16,7 +18,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Parser implementation to use for CSV configuration type.
@@ -25,9 +26,70 @@ public class CsvParser implements ConfigParser {
     /** Logger for csv parser. */
     private static final Logger LOGGER = Logger.getLogger(CsvParser.class.getName());
 
+    /** Whether to use streaming parse mode by default, can be enabled using a system property. */
+    private static final boolean STREAMING_DEFAULT = SystemProperties.getBoolean(CsvParser.class.getName() + ".streaming");
+
+    /** Whether to build subtrees of first column values in parallel by default, can be enabled using a system property. */
+    private static final boolean PARALLEL_DEFAULT = SystemProperties.getBoolean(CsvParser.class.getName() + ".parallel");
+
+    /** Whether to reuse unchanged subtrees of previous trees by default, can be enabled using a system property. */
+    private static final boolean INCREMENTAL_DEFAULT = SystemProperties.getBoolean(CsvParser.class.getName() + ".incremental");
+
     /** Form validation result, null if everything is OK. */
     private String validationResult = null;
 
+    /** Whether to build the final item tree while reading rows, keeping lookup tables for the open path only. */
+    private final boolean streaming;
+
+    /** Whether to build the subtrees of first column values in parallel after all rows have been read. */
+    private final boolean parallel;
+
+    /** Whether to reuse unchanged subtrees of the previous tree when parsing a new version of a configuration. */
+    private final boolean incremental;
+
+    /**
+     * Create new CSV parser, using the default parse mode.
+     */
+    public CsvParser() {
+        this(STREAMING_DEFAULT);
+    }
+
+    /**
+     * Create new CSV parser, building the tree in parallel if enabled by default.
+     * @param streaming whether to build the final item tree while reading rows, which reduces memory consumption for
+     *                  large configurations, in particular if rows are grouped by their values
+     */
+    public CsvParser(boolean streaming) {
+        this(streaming, PARALLEL_DEFAULT);
+    }
+
+    /**
+     * Create new CSV parser.
+     * @param streaming whether to build the final item tree while reading rows, which reduces memory consumption for
+     *                  large configurations, in particular if rows are grouped by their values
+     * @param parallel  whether to partition rows by their first column value and build the subtrees of all
+     *                  partitions in parallel, which reduces parse time of large configurations on multicore machines
+     */
+    public CsvParser(boolean streaming, boolean parallel) {
+        this(streaming, parallel, INCREMENTAL_DEFAULT);
+    }
+
+    /**
+     * Create new CSV parser.
+     * @param streaming   whether to build the final item tree while reading rows, which reduces memory consumption
+     *                    for large configurations, in particular if rows are grouped by their values
+     * @param parallel    whether to partition rows by their first column value and build the subtrees of all
+     *                    partitions in parallel, which reduces parse time of large configurations on multicore machines
+     * @param incremental whether to reuse unchanged subtrees of the previous tree, if one is passed to
+     *                    {@link #analyzeConfiguration(InputStream, MultiselectDecisionTree)}; ignored in streaming
+     *                    mode, as rows are held back while deciding whether a subtree can be reused
+     */
+    public CsvParser(boolean streaming, boolean parallel, boolean incremental) {
+        this.streaming = streaming;
+        this.parallel = parallel;
+        this.incremental = incremental;
+    }
+
     /**
      * Analyze configuration string and transform it into a tree representation of values.
      * @param config configuration input stream
@@ -35,122 +97,170 @@ public class CsvParser implements ConfigParser {
      */
     @Override
     public MultiselectDecisionTree analyzeConfiguration(InputStream config) {
-        // return value instance
-        MultiselectDecisionTree decisionTree = new MultiselectDecisionTree();
-
-        // create a new input stream reader
-        InputStreamReader reader = new InputStreamReader(config, StandardCharsets.UTF_8);
-
-        // create a new csv reader object
-        try (CSVReader csvReader = createCsvReader(reader)) {
-
-            // references for different kinds of rows
-            List<String> headers = null;
-            List<String> variableNames = null;
-            List<String> titles = null;
+        return analyzeConfiguration(config, null);
+    }
 
-            // helper object used for lookup tables
-            ValueConstructionHelper constructionHelper = new ValueConstructionHelper(null);
+    /**
+     * Analyze new version of a configuration and transform it into a tree representation of values. If incremental
+     * parsing is enabled, items of the first column whose rows have not changed are taken over from the previous
+     * tree, including their children, all other items are built from scratch. The resulting tree keeps the
+     * fingerprints of its rows for the next version.
+     * @param config   configuration input stream
+     * @param previous tree of previous version of the configuration, {@code null} if there is none
+     * @return tree of variable values
+     */
+    @Override
+    public MultiselectDecisionTree analyzeConfiguration(InputStream config, @CheckForNull MultiselectDecisionTree previous) {
+        long start = MultiselectMetrics.start();
+        try {
+            // return value instance
+            MultiselectDecisionTree decisionTree = new MultiselectDecisionTree();
+
+            // create a new input stream reader
+            InputStreamReader reader = new InputStreamReader(config, StandardCharsets.UTF_8);
+
+            // create a new csv reader object
+            try (CSVReader csvReader = createCsvReader(reader)) {
+
+                // references for different kinds of rows
+                List<String> headers = null;
+                List<String> variableNames = null;
+                String[] titles = null;
+
+                // helper object used to combine content rows into tree, fingerprinting rows only for new versions of an
+                // edited configuration, not when materializing stored configurations, and never holding back rows in
+                // streaming mode, which keeps memory bounded by the open path
+                IncrementalTreeBuilder incrementalBuilder = incremental && previous != null && !streaming ? new IncrementalTreeBuilder(createTreeBuilder(), previous) : null;
+                ItemTreeBuilder treeBuilder = incrementalBuilder != null ? incrementalBuilder : createTreeBuilder();
+
+                // row index
+                int index = 1;
+
+                // iterate rows in configuration
+                for (String[] row : csvReader) {
+                    // need at least two column entries for reasonable configuration
+                    if (row.length < 2) {
+                        continue;
+                    }
+
+                    // first character in row (first column) declares the type of content that follows
+                    RowType type = RowType.of(row[0]);
+
+                    // handle each row type separately
+                    switch (type) {
+                        case HEADER:
+                            // store row in headers, starting from column two
+                            headers = subList(row);
+                            break;
+                        case VARIABLENAME:
+                            // store row in variable names used in build environment variables
+                            variableNames = subList(row);
+                            break;
+                        case TITLE:
+                            // store row in titles
+                            titles = row;
+                            // row length should not be longer than length of headers
+                            ensureMatchingListLengths(variableNames, index, row);
+                            break;
+                        case CONTENT:
+                            // row length should not be longer than length of headers
+                            ensureMatchingListLengths(variableNames, index, row);
+                            // combine items in tree
+                            treeBuilder.addItems(titles, row);
+                            // reset titles
+                            titles = null;
+                            break;
+                        default:
+                            LOGGER.log(Level.INFO, "Invalid configuration value");
+                    }
+
+                    // increment row number
+                    ++index;
+                }
 
-            // row index
-            int index = 1;
+                // create storage for variable descriptor objects
+                List<MultiselectVariableDescriptor> variableDescriptions = new ArrayList<>();
 
-            // iterate rows in configuration
-            for (String[] row : csvReader) {
-                // need at least two column entries for reasonable configuration
-                if (row.length < 2) {
-                    continue;
+                // variable names could be missing in configuration...
+                if (variableNames == null) {
+                    validationResult = Messages.FormValidation_NoVariablesDefined();
                 }
 
-                // first character in row (first column) declares the type of content that follows
-                RowType type = RowType.of(row[0]);
-
-                // convert row into list of strings, starting from column two
-                List<String> subList = Arrays.stream(row).skip(1).collect(Collectors.toList());
-
-                // handle each row type separately
-                switch (type) {
-                    case HEADER:
-                        // store row in headers
-                        headers = subList;
-                        break;
-                    case VARIABLENAME:
-                        // store row in variable names used in build environment variables
-                        variableNames = subList;
-                        break;
-                    case TITLE:
-                        // store row in titles
-                        titles = subList;
-                        // row length should not be longer than length of headers
-                        ensureMatchingListLengths(variableNames, index, subList);
-                        break;
-                    case CONTENT:
-                        // row length should not be longer than length of headers
-                        ensureMatchingListLengths(variableNames, index, subList);
-                        // combine items in tree
-                        addItems(constructionHelper, titles, subList);
-                        // reset titles
-                        titles = null;
-                        break;
-                    default:
-                        LOGGER.log(Level.INFO, "Invalid configuration value");
+                // names or headers should be present
+                if (variableNames != null || headers != null) {
+                    int variableNamesSize = size(variableNames);
+                    int headersSize = size(headers);
+                    // ... otherwise create a new descriptor per variable
+                    for (int i = 0; i < Math.max(variableNamesSize, headersSize); ++i) {
+                        // create a label for the dropdown box
+                        String label = get(headers, i);
+
+                        // create variable name
+                        String variable = get(variableNames, i);
+
+                        // create descriptor and add it to the list of variable descriptors
+                        MultiselectVariableDescriptor variableDescriptor = new MultiselectVariableDescriptor(label, variable);
+                        variableDescriptor.setColumnIndex(i);
+                        variableDescriptions.add(variableDescriptor);
+                    }
                 }
 
-                // increment row number
-                ++index;
-            }
-
-            // create storage for variable descriptor objects
-            List<MultiselectVariableDescriptor> variableDescriptions = new ArrayList<>();
-
-            // variable names could be missing in configuration...
-            if (variableNames == null) {
-                validationResult = Messages.FormValidation_NoVariablesDefined();
-            }
-
-            // names or headers should be present
-            if (variableNames != null || headers != null) {
-                int variableNamesSize = size(variableNames);
-                int headersSize = size(headers);
-                // ... otherwise create a new descriptor per variable
-                for (int i = 0; i < Math.max(variableNamesSize, headersSize); ++i) {
-                    // create a label for the dropdown box
-                    String label = get(headers, i);
-
-                    // create variable name
-                    String variable = get(variableNames, i);
-
-                    // create descriptor and add it to the list of variable descriptors
-                    MultiselectVariableDescriptor variableDescriptor = new MultiselectVariableDescriptor(label, variable);
-                    variableDescriptor.setColumnIndex(i);
-                    variableDescriptions.add(variableDescriptor);
+                // set item list in result
+                decisionTree.setItemList(treeBuilder.createItemList());
+                if (incrementalBuilder != null) {
+                    decisionTree.setSourceFingerprints(incrementalBuilder.getFingerprints());
+                    LOGGER.log(Level.FINE, "Reused {0} items of first column from previous tree", incrementalBuilder.getReusedItemCount());
                 }
-            }
 
-            // set item list in result
-            decisionTree.setItemList(constructionHelper.createItemList());
+                // set variable descriptions in result
+                decisionTree.setVariableDescriptions(variableDescriptions);
+            } catch (IOException e) {
+                LOGGER.log(Level.INFO, "Unable to close CSV parser when reading configuration");
+            }
 
-            // set variable descriptions in result
-            decisionTree.setVariableDescriptions(variableDescriptions);
-        } catch (IOException e) {
-            LOGGER.log(Level.INFO, "Unable to close CSV parser when reading configuration");
+            return decisionTree;
+        } finally {
+            MultiselectMetrics.stop(MultiselectMetrics.Operation.PARSE_CSV, start);
         }
-
-        return decisionTree;
     }
 
     protected CSVReader createCsvReader(InputStreamReader reader) {
         return new CSVReaderBuilder(reader).build();
     }
 
+    /**
+     * Create tree builder to combine content rows into tree, depending on parse mode.
+     * @return tree builder
+     */
+    ItemTreeBuilder createTreeBuilder() {
+        return parallel ? new ParallelTreeBuilder(this::createSequentialTreeBuilder) : createSequentialTreeBuilder();
+    }
+
+    /**
+     * Create tree builder to combine content rows into tree in the current thread, depending on parse mode.
+     * @return tree builder
+     */
+    private ItemTreeBuilder createSequentialTreeBuilder() {
+        return streaming ? new StreamingTreeBuilder() : new LookupTreeBuilder();
+    }
+
+    /**
+     * Convert row into list of strings, starting from column two.
+     * @param row row from CSV reader
+     * @return list of strings
+     */
+    private static List<String> subList(String[] row) {
+        return Arrays.asList(row).subList(1, row.length);
+    }
+
     /**
      * Validate the lists of variable names and values. List of values may not be longer than the list of variable names.
      * @param variableNames list of variable names
      * @param index         current column number
-     * @param subList       list of values
+     * @param row           row of values, including row type marker in first column
      */
-    private void ensureMatchingListLengths(List<String> variableNames, int index, List<String> subList) {
-        if (variableNames != null && subList.size() > variableNames.size()) {
+    private void ensureMatchingListLengths(List<String> variableNames, int index, String[] row) {
+        if (variableNames != null && row.length - 1 > variableNames.size()) {
             validationResult = Messages.FormValidation_NotEnoughColumns(index);
         }
     }
@@ -168,50 +278,6 @@ public class CsvParser implements ConfigParser {
         return validationResult;
     }
 
-    /**
-     * Add content items to list of items.
-     * @param rootHelper root construction helper with lookup tables
-     * @param headers    list of headers
-     * @param values     list of values
-     */
-    private void addItems(ValueConstructionHelper rootHelper, List<String> headers, List<String> values) {
-        // initialize helper object iterator with root object
-        ValueConstructionHelper currentHelper = rootHelper;
-
-        // iterate list of values
-        for (int i = 0; i < values.size(); ++i) {
-            // get value for column of index i
-            String value = values.get(i);
-
-            // default title is empty
-            String title = "";
-
-            // if a title is found for column index i...
-            if (headers != null && headers.size() > i) {
-                // use it as title
-                title = headers.get(i);
-            }
-
-            // try to find value helper for current value
-            ValueConstructionHelper valueHelper = currentHelper.getValueHelper(value);
-
-            // if no value helper has been found...
-            if (valueHelper == null) {
-                // ... create a new one
-                MultiselectDecisionItem decisionItem = new MultiselectDecisionItem(title, value);
-                decisionItem.setParent(currentHelper.getDecisionItem());
-                valueHelper = new ValueConstructionHelper(
-                        decisionItem);
-
-                // ... and add it to lookup table of current helper
-                currentHelper.addValueHelper(value, valueHelper);
-            }
-
-            // then advance in list of columns by using lookup table
-            currentHelper = valueHelper;
-        }
-    }
-
     /**
      * Enum for allowed types of row content.
      */
@@ -0,0 +1,144 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Writes the item rows of a tree to CSV in a single top-down pass. Labels and values of the items on the path from
+ * the root to the current item are kept in reusable buffers, so rows can be written as soon as a leaf is reached,
+ * without walking back to the root. Rows are written directly to the output writer, quoting fields the same way as
+ * opencsv's {@code CSVWriter} with default settings: fields are only quoted if they contain quotes, commas or line
+ * breaks, and quotes are doubled.
+ */
+final class CsvPathWriter {
+    /** Writer to use. */
+    private final Writer writer;
+
+    /** Labels of the items on the current path, indexed by column. */
+    private String[] labelPath = new String[8];
+
+    /** Values of the items on the current path, indexed by column. */
+    private String[] valuePath = new String[8];
+
+    /**
+     * Create new path writer.
+     * @param writer writer to use
+     */
+    CsvPathWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write one {@code C} row (preceded by a {@code T} row if any label is set) per leaf item.
+     * @param items items of first column
+     * @throws IOException in case writing to the output writer fails
+     */
+    void write(List<MultiselectDecisionItem> items) throws IOException {
+        write(items, 0);
+    }
+
+    /**
+     * Write rows for a list of items and (recursively) their children.
+     * @param items items of one column
+     * @param depth column index of the items
+     * @throws IOException in case writing to the output writer fails
+     */
+    private void write(List<MultiselectDecisionItem> items, int depth) throws IOException {
+        // avoid creating an iterator object for the (usual) array based lists
+        if (items instanceof RandomAccess) {
+            for (int i = 0; i < items.size(); ++i) {
+                write(items.get(i), depth);
+            }
+        } else {
+            for (MultiselectDecisionItem item : items) {
+                write(item, depth);
+            }
+        }
+    }
+
+    /**
+     * Put item on the current path and write its rows.
+     * @param item  item to write
+     * @param depth column index of the item
+     * @throws IOException in case writing to the output writer fails
+     */
+    private void write(MultiselectDecisionItem item, int depth) throws IOException {
+        if (depth == labelPath.length) {
+            labelPath = Arrays.copyOf(labelPath, depth * 2);
+            valuePath = Arrays.copyOf(valuePath, depth * 2);
+        }
+        labelPath[depth] = item.getLabel();
+        valuePath[depth] = item.getValue();
+
+        List<MultiselectDecisionItem> children = item.getChildren();
+        if (children.isEmpty()) {
+            writeRows(depth + 1);
+        } else {
+            write(children, depth + 1);
+        }
+    }
+
+    /**
+     * Write rows for the current path.
+     * @param columns number of columns on the current path
+     * @throws IOException in case writing to the output writer fails
+     */
+    private void writeRows(int columns) throws IOException {
+        // label row is only written if at least one label on the path is not empty
+        for (int column = 0; column < columns; ++column) {
+            String label = labelPath[column];
+            if (label != null && !label.isEmpty()) {
+                writeRow('T', labelPath, columns);
+                break;
+            }
+        }
+        writeRow('C', valuePath, columns);
+    }
+
+    /**
+     * Write a single row.
+     * @param type    row type in first column
+     * @param fields  field values, {@code null} values are written as empty fields
+     * @param columns number of fields to write
+     * @throws IOException in case writing to the output writer fails
+     */
+    private void writeRow(char type, String[] fields, int columns) throws IOException {
+        writer.write(type);
+        for (int column = 0; column < columns; ++column) {
+            writer.write(',');
+            String field = fields[column];
+            if (field != null) {
+                writeField(field);
+            }
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Write a field, quoting it if it contains quotes, separators or line breaks. Quotes inside quoted fields are
+     * doubled.
+     * @param field field value
+     * @throws IOException in case writing to the output writer fails
+     */
+    private void writeField(String field) throws IOException {
+        if (field.indexOf('"') == -1 && field.indexOf(',') == -1 && field.indexOf('\n') == -1 && field.indexOf('\r') == -1) {
+            writer.write(field);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < field.length(); ++i) {
+            char character = field.charAt(i);
+            if (character == '"') {
+                writer.write('"');
+            }
+            writer.write(character);
+        }
+        writer.write('"');
+    }
+}
@@ -4,8 +4,10 @@ import com.opencsv.CSVWriter;
 import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
+import java.io.BufferedWriter;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -22,7 +24,7 @@ public class CsvWriter implements ConfigSerialization {
     @Override
     public void serialize(MultiselectDecisionTree decisionTree, OutputStream outputStream) throws Exception {
         // wrap output stream in writer object
-        try (OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        try (Writer streamWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
              CSVWriter writer = new CSVWriter(streamWriter)) {
             // write header row content
             writeList("H", decisionTree.getVariableLabels(), writer);
@@ -30,8 +32,8 @@ public class CsvWriter implements ConfigSerialization {
             // write second row
             writeList("V", decisionTree.getVariableNames(), writer);
 
-            // print tree to CSV by applying visitor
-            decisionTree.visitSubTree(new CvwWriterVisitor(writer));
+            // print tree to CSV in a single pass along the item paths
+            new CsvPathWriter(streamWriter).write(decisionTree.getItemList());
         }
     }
 
@@ -0,0 +1,298 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectConfigurationCache;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+
+import javax.annotation.CheckForNull;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree builder reusing the subtrees of a previous version of the decision tree for all values in the first column
+ * whose rows have not changed, e.g. when a large configuration is edited in the job configuration form. Rows are
+ * partitioned by their value in the first column, and a fingerprint (SHA-256 hash) of the rows of each partition is
+ * kept in the resulting tree. When parsing the next version, partitions with the same fingerprint as in the previous
+ * tree take over its item of the first column, including all children and their strings. Only the rows of all other
+ * partitions are handed to the delegate builder, so the number of items created depends on the size of the edit, not
+ * on the size of the configuration.
+ * <p>
+ * Fingerprints are only computed for partitions whose rows are contiguous, as they are in serialized trees. Rows of new
+ * values are handed to the delegate builder right away. Rows of a value found in the previous tree are held back only
+ * while its partition is open: when the next partition starts, the fingerprint is compared, and the rows are either
+ * dropped, as the previous item is reused, or handed to the delegate builder. So at most the rows of one partition are
+ * kept at a time. If a reused partition turns out not to be contiguous, rows equivalent to its first block are created
+ * from the previous item and handed to the delegate builder before the rows of the following blocks. Reused items
+ * belong to an immutable snapshot, so they are read-only.
+ */
+class IncrementalTreeBuilder implements ItemTreeBuilder {
+    /** Builder creating the items of all partitions that can not be reused. */
+    private final ItemTreeBuilder delegate;
+
+    /** Items of first column of previous tree that may be reused, by value. */
+    private final Map<String, MultiselectDecisionItem> previousItems = new HashMap<>();
+
+    /** Fingerprints of the rows the items of the previous tree have been parsed from, by value. */
+    private final Map<String, Long> previousFingerprints;
+
+    /** Partitions by value in first column, in order of first appearance. */
+    private final Map<String, Partition> partitions = new LinkedHashMap<>();
+
+    /** Message digest computing the fingerprint of the current partition. */
+    private final MessageDigest digest = MultiselectConfigurationCache.sha256();
+
+    /** Buffer for characters and integer values added to fingerprint. */
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    /** Partition of last row, {@code null} if no rows have been added yet. */
+    private Partition current;
+
+    /** Title and content rows of the current partition, alternating, held back while it may be reused. */
+    private final List<String[]> heldRows = new ArrayList<>();
+
+    /** Fingerprints of the partitions of the created tree, by value of first column item. */
+    private final Map<String, Long> fingerprints = new HashMap<>();
+
+    /** Number of items of first column taken over from previous tree. */
+    private int reusedItemCount;
+
+    /**
+     * Create new incremental tree builder.
+     * @param delegate builder creating the items of all partitions that can not be reused
+     * @param previous previous version of the tree, {@code null} if there is none
+     */
+    IncrementalTreeBuilder(ItemTreeBuilder delegate, @CheckForNull MultiselectDecisionTree previous) {
+        this.delegate = delegate;
+        this.previousFingerprints = previous != null ? previous.getSourceFingerprints() : Map.of();
+
+        // items of compacted trees are views of the compact representation and can not be taken over
+        if (!previousFingerprints.isEmpty() && !previous.isCompact()) {
+            for (MultiselectDecisionItem item : previous.getItemList()) {
+                if (previousFingerprints.containsKey(item.getValue())) {
+                    previousItems.put(item.getValue(), item);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addItems(String[] titles, String[] row) {
+        // rows without values do not contribute any items
+        if (row.length < 2) {
+            return;
+        }
+
+        // find partition of row, deciding about the previous partition when leaving it
+        Partition partition = current;
+        if (partition == null || !partition.value.equals(row[1])) {
+            finish();
+            partition = partitions.get(row[1]);
+            if (partition == null) {
+                partition = new Partition(row[1], previousItems.containsKey(row[1]));
+                partitions.put(row[1], partition);
+            } else {
+                // partition is split into several blocks of rows, the rows can not be fingerprinted
+                partition.contiguous = false;
+                if (partition.reused) {
+                    partition.reused = false;
+                    replay(previousItems.get(partition.value));
+                }
+            }
+            current = partition;
+        }
+
+        // rows of the first block of partitions that may be reused are held back until the fingerprint is known
+        if (partition.reusable && partition.contiguous) {
+            heldRows.add(titles);
+            heldRows.add(row);
+        } else {
+            delegate.addItems(titles, row);
+        }
+        if (partition.contiguous) {
+            update(titles);
+            update(row);
+        }
+    }
+
+    @Override
+    public List<MultiselectDecisionItem> createItemList() {
+        finish();
+        current = null;
+
+        Map<String, MultiselectDecisionItem> builtItems = new HashMap<>();
+        for (MultiselectDecisionItem item : delegate.createItemList()) {
+            builtItems.put(item.getValue(), item);
+        }
+
+        // combine reused and newly built items in order of partitions
+        List<MultiselectDecisionItem> items = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions.values()) {
+            MultiselectDecisionItem item;
+            if (partition.reused) {
+                item = previousItems.get(partition.value);
+                ++reusedItemCount;
+            } else {
+                item = builtItems.get(partition.value);
+            }
+            items.add(item);
+            if (partition.contiguous) {
+                fingerprints.put(item.getValue(), partition.fingerprint);
+            }
+        }
+        partitions.clear();
+        return items;
+    }
+
+    /**
+     * Get fingerprints of the rows the items of the first column of the created tree have been parsed from, to be
+     * kept in the tree for the next incremental parse.
+     * @return fingerprints by value of first column item
+     */
+    Map<String, Long> getFingerprints() {
+        return fingerprints;
+    }
+
+    /**
+     * Get number of items of the first column taken over from the previous tree.
+     * @return number of reused items
+     */
+    int getReusedItemCount() {
+        return reusedItemCount;
+    }
+
+    /**
+     * Finish fingerprint of current partition, if any. If the item of the previous tree may be reused, compare the
+     * fingerprints and either reuse the item or hand the held back rows to the delegate builder.
+     */
+    private void finish() {
+        if (current != null && current.contiguous && current.fingerprint == null) {
+            current.fingerprint = ByteBuffer.wrap(digest.digest()).getLong();
+            if (current.reusable) {
+                current.reused = current.fingerprint.equals(previousFingerprints.get(current.value));
+                if (!current.reused) {
+                    for (int i = 0; i < heldRows.size(); i += 2) {
+                        delegate.addItems(heldRows.get(i), heldRows.get(i + 1));
+                    }
+                }
+                heldRows.clear();
+            }
+        }
+        digest.reset();
+    }
+
+    /**
+     * Hand rows to the delegate builder that create the same items as a reused item of the previous tree, one title
+     * and one content row per leaf item. Used if further rows of the same value follow after the item has been
+     * reused.
+     * @param item item of first column of previous tree
+     */
+    private void replay(MultiselectDecisionItem item) {
+        replay(item, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * Hand rows for an item and (recursively) its children to the delegate builder.
+     * @param item   item to create rows for
+     * @param labels labels of the items on the path to the item, without the item itself
+     * @param values values of the items on the path to the item, without the item itself
+     */
+    private void replay(MultiselectDecisionItem item, List<String> labels, List<String> values) {
+        labels.add(item.getLabel() != null ? item.getLabel() : "");
+        values.add(item.getValue());
+        if (item.getChildren().isEmpty()) {
+            // titles only apply to items created by the row, so every row carries the labels of the whole path
+            String[] titles = new String[labels.size() + 1];
+            String[] row = new String[values.size() + 1];
+            titles[0] = "T";
+            row[0] = "C";
+            for (int i = 0; i < labels.size(); ++i) {
+                titles[i + 1] = labels.get(i);
+                row[i + 1] = values.get(i);
+            }
+            delegate.addItems(titles, row);
+        } else {
+            for (MultiselectDecisionItem child : item.getChildren()) {
+                replay(child, labels, values);
+            }
+        }
+        labels.remove(labels.size() - 1);
+        values.remove(values.size() - 1);
+    }
+
+    /**
+     * Add a row to the fingerprint of the current partition, starting from column two.
+     * @param row row including row type marker in first column, {@code null} for missing title rows
+     */
+    private void update(String[] row) {
+        if (row == null) {
+            update(-1);
+            return;
+        }
+        update(row.length - 1);
+        for (int i = 1; i < row.length; ++i) {
+            String string = row[i];
+            update(string.length());
+            ensureCapacity(Character.BYTES * string.length());
+            for (int c = 0; c < string.length(); ++c) {
+                buffer.putChar(string.charAt(c));
+            }
+            digest.update(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    /**
+     * Add an integer value to the fingerprint of the current partition.
+     * @param value integer value
+     */
+    private void update(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+        digest.update(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Clear buffer, growing it if it can not take the given number of bytes.
+     * @param bytes number of bytes to put into buffer
+     */
+    private void ensureCapacity(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Rows sharing the same value in the first column.
+     */
+    private static final class Partition {
+        /** Value in first column. */
+        private final String value;
+
+        /** Whether the previous tree has an item with the same value and a fingerprint, which may be reused. */
+        private final boolean reusable;
+
+        /** Whether the item of the previous tree is reused, decided when the first block of rows is left. */
+        private boolean reused;
+
+        /** Whether all rows of the partition are adjacent to each other. */
+        private boolean contiguous = true;
+
+        /** Fingerprint of rows, {@code null} until partition has been left. */
+        private Long fingerprint;
+
+        /**
+         * Create new partition.
+         * @param value    value in first column
+         * @param reusable whether the item of the previous tree may be reused
+         */
+        private Partition(String value, boolean reusable) {
+            this.value = value;
+            this.reusable = reusable;
+        }
+    }
+}
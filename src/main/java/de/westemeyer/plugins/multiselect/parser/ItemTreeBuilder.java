@@ -0,0 +1,34 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+
+import java.util.List;
+
+/**
+ * Builder interface used by the CSV parser to combine content rows into a tree of decision items.
+ */
+interface ItemTreeBuilder {
+    /**
+     * Add content row to item tree.
+     * @param titles optional title row preceding the content row, including row type marker in first column
+     * @param row    content row, including row type marker in first column
+     */
+    void addItems(String[] titles, String[] row);
+
+    /**
+     * Create item list of first column, after all rows have been added.
+     * @return list of items in first column
+     */
+    List<MultiselectDecisionItem> createItemList();
+
+    /**
+     * Get title for a value column from title row.
+     * @param titles optional title row, including row type marker in first column
+     * @param column value column index
+     * @return title or empty string, if no title has been defined
+     */
+    static String title(String[] titles, int column) {
+        // if a title is found for column index, use it as title, default title is empty
+        return titles != null && titles.length > column + 1 ? titles[column + 1] : "";
+    }
+}
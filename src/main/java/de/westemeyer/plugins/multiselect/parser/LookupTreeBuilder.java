@@ -0,0 +1,48 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+
+import java.util.List;
+
+/**
+ * Default tree builder, keeping lookup tables for all items until the whole configuration has been read, then
+ * converting them into lists of child items.
+ */
+class LookupTreeBuilder implements ItemTreeBuilder {
+    /** Root construction helper with lookup tables. */
+    private final ValueConstructionHelper rootHelper = new ValueConstructionHelper(null);
+
+    @Override
+    public void addItems(String[] titles, String[] row) {
+        // initialize helper object iterator with root object
+        ValueConstructionHelper currentHelper = rootHelper;
+
+        // iterate list of values, starting from column two
+        for (int i = 0; i < row.length - 1; ++i) {
+            // get value for column of index i
+            String value = row[i + 1];
+
+            // try to find value helper for current value
+            ValueConstructionHelper valueHelper = currentHelper.getValueHelper(value);
+
+            // if no value helper has been found...
+            if (valueHelper == null) {
+                // ... create a new one
+                MultiselectDecisionItem decisionItem = new MultiselectDecisionItem(ItemTreeBuilder.title(titles, i), value);
+                decisionItem.setParent(currentHelper.getDecisionItem());
+                valueHelper = new ValueConstructionHelper(decisionItem);
+
+                // ... and add it to lookup table of current helper
+                currentHelper.addValueHelper(value, valueHelper);
+            }
+
+            // then advance in list of columns by using lookup table
+            currentHelper = valueHelper;
+        }
+    }
+
+    @Override
+    public List<MultiselectDecisionItem> createItemList() {
+        return rootHelper.createItemList();
+    }
+}
@@ -4,7 +4,13 @@ import de.westemeyer.plugins.multiselect.MultiselectConfigurationFormat;
 import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
 import org.apache.tools.ant.filters.StringInputStream;
 
+import javax.annotation.CheckForNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 /**
  * Parameter parser object, delegating to a specific format parser, e.g. CSV.
@@ -39,24 +45,75 @@ public class MultiselectParameterParser {
      * @throws IOException in case an error occurs while reading string
      */
     public MultiselectDecisionTree parseConfiguration(String input) throws IOException {
+        return parseConfiguration(input, null);
+    }
+
+    /**
+     * Parse new version of a configuration string, reusing the unchanged subtrees of the tree parsed from the
+     * previous version, if the format supports it.
+     * @param input    string to parse
+     * @param previous variable selection tree of previous version, {@code null} if there is none
+     * @return variable selection tree
+     * @throws IOException in case an error occurs while reading string
+     */
+    public MultiselectDecisionTree parseConfiguration(String input, @CheckForNull MultiselectDecisionTree previous) throws IOException {
+        // binary formats are kept as Base64 encoded strings
+        if (!format.isTextual()) {
+            try {
+                return parseConfiguration(new ByteArrayInputStream(Base64.getDecoder().decode(input)), previous);
+            } catch (IllegalArgumentException exception) {
+                throw new IOException("Configuration is not Base64 encoded", exception);
+            }
+        }
+
         // open string input stream
         try (StringInputStream inputStream = new StringInputStream(input)) {
             // parse configuration
-            return parseConfiguration(inputStream);
+            return parseConfiguration(inputStream, previous);
         }
     }
 
+    /**
+     * Serialize decision tree as configuration string, Base64 encoded for binary formats.
+     * @param decisionTree decision tree to serialize
+     * @return configuration string
+     * @throws Exception in case an error occurs while serializing the tree
+     */
+    public String serializeConfiguration(MultiselectDecisionTree decisionTree) throws Exception {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            decisionTree.serialize(format.createWriter(), outputStream);
+            if (!format.isTextual()) {
+                return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            }
+            return outputStream.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Convert configuration string from one format into another.
+     * @param input  configuration string
+     * @param source format of configuration string
+     * @param target format to convert to
+     * @return configuration string in target format
+     * @throws Exception in case an error occurs while reading or writing the configuration
+     */
+    public static String convert(String input, MultiselectConfigurationFormat source, MultiselectConfigurationFormat target) throws Exception {
+        MultiselectDecisionTree decisionTree = new MultiselectParameterParser(source).parseConfiguration(input);
+        return new MultiselectParameterParser(target).serializeConfiguration(decisionTree);
+    }
+
     /**
      * Parse the configuration stream.
      * @param inputStream input stream to read
+     * @param previous    variable selection tree of previous version, {@code null} if there is none
      * @return variable selection tree
      */
-    private MultiselectDecisionTree parseConfiguration(StringInputStream inputStream) {
+    private MultiselectDecisionTree parseConfiguration(InputStream inputStream, @CheckForNull MultiselectDecisionTree previous) {
         // create a new parser for the specific format
         ConfigParser parser = format.createParser();
 
         // Analyze the configuration
-        MultiselectDecisionTree multiselectDecisionTree = parser.analyzeConfiguration(inputStream);
+        MultiselectDecisionTree multiselectDecisionTree = parser.analyzeConfiguration(inputStream, previous);
 
         // keep validation result
         validationResult = parser.getValidationResult();
@@ -0,0 +1,162 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Tree builder partitioning content rows by their value in the first column, then building the subtrees of all
+ * partitions in parallel on a fork/join pool. Partitions keep the order in which their first column values appear, as
+ * do the lookup tables of the sequential builders, and each partition is built from its rows in their original order
+ * by a sequential builder of its own. Hence, concatenating the items of all partitions results in the same tree the
+ * sequential builder creates from all rows.
+ */
+class ParallelTreeBuilder implements ItemTreeBuilder {
+    /** Maximum number of rows to build in a single task without splitting it up any further. */
+    private static final int SEQUENTIAL_ROWS = 1000;
+
+    /** Factory for sequential builders, creating the subtree of a single partition. */
+    private final Supplier<ItemTreeBuilder> builderFactory;
+
+    /** Pool to build partitions on. */
+    private final ForkJoinPool pool;
+
+    /** Partitions by value in first column, in order of first appearance. */
+    private final Map<String, List<Row>> partitions = new LinkedHashMap<>();
+
+    /**
+     * Create new parallel tree builder, using the common fork/join pool.
+     * @param builderFactory factory for sequential builders, creating the subtree of a single partition
+     */
+    ParallelTreeBuilder(Supplier<ItemTreeBuilder> builderFactory) {
+        this(builderFactory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create new parallel tree builder.
+     * @param builderFactory factory for sequential builders, creating the subtree of a single partition
+     * @param pool           pool to build partitions on
+     */
+    ParallelTreeBuilder(Supplier<ItemTreeBuilder> builderFactory, ForkJoinPool pool) {
+        this.builderFactory = builderFactory;
+        this.pool = pool;
+    }
+
+    @Override
+    public void addItems(String[] titles, String[] row) {
+        // rows without values do not contribute any items
+        if (row.length > 1) {
+            partitions.computeIfAbsent(row[1], value -> new ArrayList<>()).add(new Row(titles, row));
+        }
+    }
+
+    @Override
+    public List<MultiselectDecisionItem> createItemList() {
+        List<List<Row>> partitionList = new ArrayList<>(partitions.values());
+        partitions.clear();
+        BuildTask task = new BuildTask(partitionList, 0, partitionList.size());
+
+        // there is nothing to gain from forking tasks for small configurations or on a single core
+        return task.rows() <= SEQUENTIAL_ROWS || pool.getParallelism() < 2 ? task.build() : pool.invoke(task);
+    }
+
+    /**
+     * Content row with its optional title row.
+     */
+    private static final class Row {
+        /** Optional title row preceding the content row, including row type marker in first column. */
+        private final String[] titles;
+
+        /** Content row, including row type marker in first column. */
+        private final String[] values;
+
+        /**
+         * Create new row.
+         * @param titles optional title row preceding the content row
+         * @param values content row
+         */
+        private Row(String[] titles, String[] values) {
+            this.titles = titles;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Task building the items of a range of partitions, splitting the range in halves as long as it contains more
+     * than one partition and too many rows to be built by a single task.
+     */
+    private final class BuildTask extends RecursiveTask<List<MultiselectDecisionItem>> {
+        /** All partitions. */
+        private final List<List<Row>> partitionList;
+
+        /** Index of first partition of this task. */
+        private final int from;
+
+        /** Index after last partition of this task. */
+        private final int to;
+
+        /**
+         * Create new task.
+         * @param partitionList all partitions
+         * @param from          index of first partition of this task
+         * @param to            index after last partition of this task
+         */
+        private BuildTask(List<List<Row>> partitionList, int from, int to) {
+            this.partitionList = partitionList;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<MultiselectDecisionItem> compute() {
+            if (to - from == 1 || rows() <= SEQUENTIAL_ROWS) {
+                return build();
+            }
+
+            // build first half in another thread, second half in this one
+            int middle = (from + to) >>> 1;
+            BuildTask first = new BuildTask(partitionList, from, middle);
+            first.fork();
+            List<MultiselectDecisionItem> second = new BuildTask(partitionList, middle, to).compute();
+
+            // merge items, keeping the order of partitions
+            List<MultiselectDecisionItem> items = new ArrayList<>(first.join());
+            items.addAll(second);
+            return items;
+        }
+
+        /**
+         * Build the items of all partitions of this task in the current thread, one sequential builder per partition.
+         * @return items of first column
+         */
+        private List<MultiselectDecisionItem> build() {
+            List<MultiselectDecisionItem> items = new ArrayList<>(to - from);
+            for (int i = from; i < to; ++i) {
+                ItemTreeBuilder builder = builderFactory.get();
+                for (Row row : partitionList.get(i)) {
+                    builder.addItems(row.titles, row.values);
+                }
+                items.addAll(builder.createItemList());
+            }
+            return items;
+        }
+
+        /**
+         * Count rows of all partitions of this task.
+         * @return number of rows
+         */
+        private int rows() {
+            int rows = 0;
+            for (int i = from; i < to; ++i) {
+                rows += partitionList.get(i).size();
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tree builder adding decision items to their final lists of children while reading rows. Lookup tables are only
+ * kept for the children of items on the currently open path, i.e. the items of the last row. As soon as a row
+ * leaves the open path, lookup tables of the items left behind are discarded. Rows of a grouped configuration share
+ * the open path and are added without any lookup at all. In case a row returns to an item that has been left before,
+ * its lookup table is rebuilt from its list of children, so the resulting tree is the same as the one created by the
+ * {@link LookupTreeBuilder}.
+ */
+class StreamingTreeBuilder implements ItemTreeBuilder {
+    /** List of items in first column. */
+    private final List<MultiselectDecisionItem> itemList = new ArrayList<>();
+
+    /** Items on currently open path, one per column. */
+    private final List<MultiselectDecisionItem> openPath = new ArrayList<>();
+
+    /** Lookup tables for children of items on open path, index 0 contains lookup table for first column. */
+    private final List<Map<String, MultiselectDecisionItem>> lookups = new ArrayList<>();
+
+    /** Number of entries in all lookup tables currently kept. */
+    private int lookupEntries;
+
+    /** Maximum number of entries in all lookup tables kept at the same time. */
+    private int maxLookupEntries;
+
+    @Override
+    public void addItems(String[] titles, String[] row) {
+        // iterate list of values, starting from column two
+        for (int i = 0; i < row.length - 1; ++i) {
+            // get value for column of index i
+            String value = row[i + 1];
+
+            // still on open path, nothing to do
+            if (i < openPath.size() && Objects.equals(openPath.get(i).getValue(), value)) {
+                continue;
+            }
+
+            // leaving open path, discard lookup tables of all items left behind
+            closePath(i);
+
+            // find item in lookup table of parent item or create a new one
+            Map<String, MultiselectDecisionItem> lookup = lookup(i);
+            MultiselectDecisionItem item = lookup.get(value);
+            if (item == null) {
+                item = new MultiselectDecisionItem(ItemTreeBuilder.title(titles, i), value);
+                item.setParent(i == 0 ? null : openPath.get(i - 1));
+                children(i).add(item);
+                lookup.put(value, item);
+                updateLookupEntries(1);
+            }
+
+            // item is now part of open path
+            openPath.add(item);
+        }
+    }
+
+    /**
+     * Remove items from open path, starting with column index, discarding the lookup tables for their children.
+     * @param column first column to remove from open path
+     */
+    private void closePath(int column) {
+        while (openPath.size() > column) {
+            openPath.remove(openPath.size() - 1);
+        }
+        while (lookups.size() > column + 1) {
+            Map<String, MultiselectDecisionItem> lookup = lookups.remove(lookups.size() - 1);
+            if (lookup != null) {
+                updateLookupEntries(-lookup.size());
+            }
+        }
+    }
+
+    /**
+     * Get lookup table for items in column, (re-)building it from the list of children of the open parent item.
+     * @param column column index
+     * @return lookup table for children of open parent item
+     */
+    private Map<String, MultiselectDecisionItem> lookup(int column) {
+        while (lookups.size() <= column) {
+            lookups.add(null);
+        }
+        Map<String, MultiselectDecisionItem> lookup = lookups.get(column);
+        if (lookup == null) {
+            lookup = new HashMap<>();
+            for (MultiselectDecisionItem child : children(column)) {
+                // keep first item in case of duplicate values, just like lookup table does when adding items
+                lookup.putIfAbsent(child.getValue(), child);
+            }
+            lookups.set(column, lookup);
+            updateLookupEntries(lookup.size());
+        }
+        return lookup;
+    }
+
+    /**
+     * Get list of children of open parent item.
+     * @param column column index of children
+     * @return list of children
+     */
+    private List<MultiselectDecisionItem> children(int column) {
+        return column == 0 ? itemList : openPath.get(column - 1).getChildren();
+    }
+
+    /**
+     * Keep track of number of entries in lookup tables.
+     * @param delta number of entries added or removed
+     */
+    private void updateLookupEntries(int delta) {
+        lookupEntries += delta;
+        maxLookupEntries = Math.max(maxLookupEntries, lookupEntries);
+    }
+
+    /**
+     * Get maximum number of entries in all lookup tables kept at the same time while building the tree.
+     * @return maximum number of lookup table entries
+     */
+    int getMaxLookupEntries() {
+        return maxLookupEntries;
+    }
+
+    @Override
+    public List<MultiselectDecisionItem> createItemList() {
+        // lookup tables are no longer needed
+        closePath(0);
+        lookups.clear();
+        lookupEntries = 0;
+        return itemList;
+    }
+}
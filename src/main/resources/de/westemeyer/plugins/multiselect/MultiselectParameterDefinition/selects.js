@@ -5,31 +5,184 @@ const getJavaBehindTheCode = (element) => {
     return null;
 }
 
-const fillInValues = (name, coordinates, selectBoxId) => ((selectElement) =>
-        // get item list from java code, invoke anonymous function to fill received values into select list
-        getJavaBehindTheCode(selectElement).getItemList(coordinates, (response) => {
-            // get response values from "getItemList" call into javascript array
-            const options = response.responseObject();
-            console.log("getItemList Response: %o", options);
-
-            // clear select list
-            selectElement.options.length = 0;
-
-            // iterate all options
-            options.forEach((option, index, collection) => {
-                const newOption = document.createElement("option");
-                newOption.textContent = option;
-                newOption.value = index;
-                selectElement.appendChild(newOption);
-            });
+// replace all options of a select element with the given labels, option values are the label indices
+const replaceOptions = (selectElement, options) => {
+    // clear select list
+    selectElement.options.length = 0;
+    delete selectElement.dataset.selectedIndex;
 
-            if (selectElement.options.length > 0) {
-                // invoke comboBoxValueChanged method, which will in turn call
-                // fillInValues with the successor combo box
-                comboBoxValueChanged(name, selectElement);
-            }
-        })
-)(document.getElementById(selectBoxId));
+    // iterate all options
+    options.forEach((option, index, collection) => {
+        const newOption = document.createElement("option");
+        newOption.textContent = option;
+        newOption.value = index;
+        selectElement.appendChild(newOption);
+    });
+}
+
+// replace all options of a select element with search matches, option values are the indices in the complete list
+const replaceWithMatches = (selectElement, result) => {
+    selectElement.options.length = 0;
+    delete selectElement.dataset.selectedIndex;
+    result.labels.forEach((label, index) => {
+        const newOption = document.createElement("option");
+        newOption.textContent = label;
+        newOption.value = result.indices[index];
+        selectElement.appendChild(newOption);
+    });
+
+    // indicate that there are more matches than transferred
+    if (!result.complete) {
+        const moreOption = document.createElement("option");
+        moreOption.textContent = "\u2026";
+        moreOption.disabled = true;
+        selectElement.appendChild(moreOption);
+    }
+}
+
+// get the search field of a select element, if the column is searchable
+const getSearchField = (selectElement) => document.querySelector(`input[data-search='${selectElement.id}']`);
+
+// get the "load more" option of a select element, if not all items have been loaded yet
+const getMoreOption = (selectElement) => selectElement.querySelector('option[data-more]');
+
+// append a page of labels to a select element, option values are the indices in the complete list
+const appendPage = (selectElement, page) => {
+    getMoreOption(selectElement)?.remove();
+    page.labels.forEach((label, index) => {
+        const newOption = document.createElement("option");
+        newOption.textContent = label;
+        newOption.value = page.offset + index;
+        selectElement.appendChild(newOption);
+    });
+
+    // add option to load the next page, if there are more items
+    if (page.offset + page.labels.length < page.total) {
+        const moreOption = document.createElement("option");
+        moreOption.textContent = selectElement.closest('.select.div').dataset.moreLabel;
+        moreOption.value = "";
+        moreOption.dataset.more = "true";
+        selectElement.appendChild(moreOption);
+    }
+}
+
+// get coordinates of all select boxes before the given one
+const getPrecedingCoordinates = (name, selectElement) => getDependingVariableIds(name, selectElement).elements.slice(0, -1)
+        .map(item => item.element.options[item.element.selectedIndex].value);
+
+// number of responses kept per parameter in the client side cache
+const CACHE_SIZE = 200;
+
+// least recently used caches of item lists per parameter, also kept in session storage across page loads
+const itemCaches = new Map();
+
+// get item cache of the parameter a select element belongs to, entries are tagged with the tree version they
+// have been fetched for
+const getItemCache = (selectElement) => {
+    const listElement = selectElement.closest('.select.div');
+    const key = `multiselect-parameter-${listElement.dataset.selectForm}`;
+    let cache = itemCaches.get(key);
+    if (!cache) {
+        let entries = [];
+        try {
+            entries = JSON.parse(sessionStorage.getItem(key))?.entries || [];
+        } catch (e) {
+            console.log("Ignoring unreadable item cache %o: %o", key, e);
+        }
+        cache = {key: key, version: listElement.dataset.version, entries: new Map(entries), pending: new Map()};
+        itemCaches.set(key, cache);
+    }
+    return cache;
+}
+
+// look up cached entry, marking it as most recently used
+const getCachedEntry = (cache, path) => {
+    const entry = cache.entries.get(path);
+    if (entry !== undefined) {
+        cache.entries.delete(path);
+        cache.entries.set(path, entry);
+    }
+    return entry;
+}
+
+// add entry to cache, evicting least recently used entries
+const putCachedEntry = (cache, path, entry) => {
+    cache.entries.delete(path);
+    cache.entries.set(path, entry);
+    while (cache.entries.size > CACHE_SIZE) {
+        cache.entries.delete(cache.entries.keys().next().value);
+    }
+    try {
+        sessionStorage.setItem(cache.key, JSON.stringify({entries: [...cache.entries]}));
+    } catch (e) {
+        // session storage may be full or disabled, the cache is still used on this page
+        console.log("Could not store item cache %o: %o", cache.key, e);
+    }
+}
+
+// time after which a pending request is considered lost, in milliseconds; the JavaScript proxy does not report failed
+// requests, so later requests for the same items must not wait for it forever
+const REQUEST_TIMEOUT = 30000;
+
+// get item lists from a java method, unless its response for the same coordinate path is cached for the current tree
+// version or already pending. Entries cached for other versions are revalidated using the conditional variant of the
+// method, which only sends the items again if the tree has been modified.
+const fetchItems = (selectElement, method, args, callback) => {
+    const cache = getItemCache(selectElement);
+    const path = `${method}:${args.map(String).join(':')}`;
+    const entry = getCachedEntry(cache, path);
+    if (entry !== undefined && entry.version === cache.version) {
+        callback(entry.items);
+        return;
+    }
+
+    // wait for a request for the same items that is already running, unless it has timed out
+    const pending = cache.pending.get(path);
+    if (pending && Date.now() - pending.started < REQUEST_TIMEOUT) {
+        pending.callbacks.push(callback);
+        return;
+    }
+    const request = {started: Date.now(), callbacks: [callback]};
+    cache.pending.set(path, request);
+    const done = () => {
+        // a request replaced after its timeout no longer owns the pending entry
+        if (cache.pending.get(path) === request) {
+            cache.pending.delete(path);
+        }
+    };
+    try {
+        getJavaBehindTheCode(selectElement)[`${method}IfModified`](...args, entry?.version || null, (response) => {
+            done();
+            const result = response.responseObject();
+            console.log("%sIfModified Response: %o", method, result);
+            const items = result.modified ? result.items : entry.items;
+            cache.version = result.version;
+            putCachedEntry(cache, path, {version: result.version, items: items});
+            request.callbacks.forEach(waitingCallback => waitingCallback(items));
+        });
+    } catch (e) {
+        // the next request for the same items is sent again
+        done();
+        console.log("Request %o failed: %o", path, e);
+    }
+    // failed requests are not reported by the proxy, so the pending entry is also released after the timeout
+    setTimeout(done, REQUEST_TIMEOUT);
+}
+
+const fillInValues = (coordinates, dependingElements) =>
+        // get first page of item lists of all depending select boxes in a single call (or from cache), invoke
+        // anonymous function to fill received values into select lists
+        fetchItems(dependingElements[0], "getDependentItemPages", [coordinates], (itemPages) => {
+            // fill every depending select box, boxes without values in response are cleared
+            dependingElements.forEach((element, index) => {
+                replaceOptions(element, []);
+                appendPage(element, itemPages[index] || {labels: [], offset: 0, total: 0});
+
+                // search text does not apply to the new list of items
+                const searchField = getSearchField(element);
+                if (searchField) searchField.value = "";
+            });
+        });
 
 // Get all elements in the group until itself and the next element
 const getDependingVariableIds = (name, htmlElement) => {
@@ -42,7 +195,8 @@ const getDependingVariableIds = (name, htmlElement) => {
     // slice removes all elements after the wanted
     return {
         elements: selectsWithIds.slice(0, lastElementIndex + 1),
-        nextId: selectsWithIds[lastElementIndex + 1]?.element
+        nextId: selectsWithIds[lastElementIndex + 1]?.element,
+        dependingElements: selectsWithIds.slice(lastElementIndex + 1).map(item => item.element)
     };
 }
 
@@ -54,7 +208,82 @@ const comboBoxValueChanged = (name, element) => {
 
     // if we have the nextId we are not at the end
     if (information.nextId) {
-        fillInValues(name, coordinates, information.nextId.id);
+        fillInValues(coordinates, information.dependingElements);
+    }
+}
+
+// maximum number of matches fetched for a search text
+const SEARCH_LIMIT = 100;
+
+// time to wait for further key strokes before searching, in milliseconds
+const SEARCH_DELAY = 200;
+
+// load the next page of items when the "load more" option is selected, keeping the previous selection
+const loadMoreItems = (name, selectElement, selectedIndex) => {
+    const offset = selectElement.options.length - 1;
+    selectElement.selectedIndex = selectedIndex;
+    const pageSize = parseInt(selectElement.closest('.select.div').dataset.pageSize);
+
+    fetchItems(selectElement, "getItemPage", [getPrecedingCoordinates(name, selectElement), offset, pageSize], (page) => {
+        // ignore responses for lists that have been replaced in the meantime
+        if (getMoreOption(selectElement) && page.offset === selectElement.options.length - 1) {
+            appendPage(selectElement, page);
+        }
+    });
+}
+
+const searchValueChanged = (name, selectElement, searchField) => {
+    const query = searchField.value;
+    const information = getDependingVariableIds(name, selectElement);
+    // coordinates of all select boxes before the searched one identify the list of items to search
+    const coordinates = getPrecedingCoordinates(name, selectElement);
+
+    // without search text, show the first page of items again
+    if (query === "") {
+        const pageSize = parseInt(selectElement.closest('.select.div').dataset.pageSize);
+        fetchItems(selectElement, "getItemPage", [coordinates, 0, pageSize], (page) => {
+            if (searchField.value !== query) return;
+            replaceOptions(selectElement, []);
+            appendPage(selectElement, page);
+            comboBoxValueChanged(name, selectElement);
+        });
+        return;
+    }
+
+    getJavaBehindTheCode(selectElement).searchItemList(coordinates, query, SEARCH_LIMIT, (response) => {
+        // ignore responses for outdated search texts
+        if (searchField.value !== query) return;
+
+        const result = response.responseObject();
+        console.log("searchItemList Response: %o", result);
+        replaceWithMatches(selectElement, result);
+
+        // update depending select boxes for the first match, clear them if nothing matches
+        if (result.indices.length > 0) {
+            comboBoxValueChanged(name, selectElement);
+        } else {
+            information.dependingElements.forEach(element => replaceOptions(element, []));
+        }
+    });
+}
+
+// number of options before and after the selected one whose depending item lists are prefetched
+const PREFETCH_DISTANCE = 2;
+
+// prefetch item lists depending on the options next to the selected one, so they are cached by the time one of them
+// is selected; browsers do not report pointer events for the options of an open drop-down list, so the options
+// likely to be chosen next are prefetched as soon as the select box is focused or clicked
+const prefetchItems = (name, selectElement) => {
+    const information = getDependingVariableIds(name, selectElement);
+    if (!information.nextId) return;
+    const precedingCoordinates = getPrecedingCoordinates(name, selectElement);
+    const options = selectElement.options;
+    const first = Math.max(0, selectElement.selectedIndex - PREFETCH_DISTANCE);
+    const last = Math.min(options.length - 1, selectElement.selectedIndex + PREFETCH_DISTANCE);
+    for (let index = first; index <= last; index++) {
+        const option = options[index];
+        if (index === selectElement.selectedIndex || option.dataset.more || option.disabled) continue;
+        fetchItems(selectElement, "getDependentItemPages", [[...precedingCoordinates, option.value]], () => {});
     }
 }
 
@@ -69,7 +298,30 @@ Behaviour.specify(".select.div", 'select', 0, (listElement) => {
     listElement.querySelectorAll('select').forEach(selectElement => {
         console.log("Add listener for all selects that contains name %o", name);
         selectElement.addEventListener('change', (event) => {
-            comboBoxValueChanged(name, event.currentTarget);
+            const element = event.currentTarget;
+            if (element.options[element.selectedIndex]?.dataset.more) {
+                loadMoreItems(name, element, parseInt(element.dataset.selectedIndex || "0"));
+                return;
+            }
+            // remember selection, so it can be restored when the "load more" option is selected
+            element.dataset.selectedIndex = element.selectedIndex;
+            comboBoxValueChanged(name, element);
         });
+
+        // prefetch item lists for options next to the selected one when the select box is about to be used, if enabled
+        if (listElement.dataset.prefetch === "true") {
+            selectElement.addEventListener('focus', () => prefetchItems(name, selectElement));
+            selectElement.addEventListener('mousedown', () => prefetchItems(name, selectElement));
+        }
+
+        // filter items of searchable select boxes as you type
+        const searchField = getSearchField(selectElement);
+        if (searchField) {
+            let timeout;
+            searchField.addEventListener('input', () => {
+                clearTimeout(timeout);
+                timeout = setTimeout(() => searchValueChanged(name, selectElement, searchField), SEARCH_DELAY);
+            });
+        }
     });
 });
\ No newline at end of file
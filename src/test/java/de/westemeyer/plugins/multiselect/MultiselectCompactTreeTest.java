@@ -0,0 +1,121 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectCompactTreeTest {
+    /** Csv input content for tests. */
+    private static final String INPUT_CSV = "H,Type,Sport,Country,Team\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY,SELECTED_TEAM\nC,Water,Wakeboarding,Germany,WSC Duisburg Rheinhausen\nC,Water,Wakeboarding,Germany,WSC Paderborn\nC,Water,Wakeboarding,Austria,WSC Wien\nT,,,,Alternative team name\nC,Water,Waterball,Germany,Waterball Team\nC,Water,Surfing,England,Bristol Surf Team\nC,Ball,Football,France,Paris St. Germain\nT,,,,Alternative team name\nC,Ball,Handball,Germany,THW Kiel\n";
+
+    @Test
+    void compactTreeKeepsContent() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        assertFalse(tree.isCompact());
+        tree.compact();
+        assertTrue(tree.isCompact());
+        assertEquals(INPUT_CSV, tree.toString());
+
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, tree.getChildLabels(0));
+        assertArrayEquals(new String[]{"Alternative team name"}, tree.getChildLabels(0, 1, 0));
+        assertArrayEquals(new String[0], tree.getChildLabels());
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getChildLabels(0, 3));
+        String[][] dependentLabels = tree.getDependentChildLabels(1);
+        assertEquals(3, dependentLabels.length);
+        assertArrayEquals(new String[]{"France"}, dependentLabels[1]);
+
+        List<String> initialValues = tree.getInitialValuesForColumn(2).stream().map(MultiselectDecisionItem::getValue).collect(Collectors.toList());
+        assertEquals(List.of("Germany", "Austria"), initialValues);
+        assertEquals(2, tree.getVariableDescriptions().get(2).getInitialValues().size());
+
+        Map<String, Integer> selection = new HashMap<>();
+        selection.put("SELECTED_TYPE", 1);
+        selection.put("SELECTED_SPORT", 1);
+        selection.put("SELECTED_COUNTRY", 0);
+        selection.put("SELECTED_TEAM", 0);
+        Map<String, String> values = tree.resolveValues(selection);
+        assertEquals("Handball", values.get("SELECTED_SPORT"));
+        assertEquals("THW Kiel", values.get("SELECTED_TEAM"));
+    }
+
+    @Test
+    void itemViews() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        tree.compact();
+        MultiselectDecisionItem item = tree.getItemByCoordinates(0, 1, 0, 0);
+        assertEquals("Waterball Team", item.getValue());
+        assertEquals("Alternative team name", item.getDisplayLabel());
+        assertTrue(item.isLeaf());
+        assertFalse(item.isRoot());
+        assertEquals("Germany", item.getParent().getValue());
+        MultiselectDecisionItem root = item.getParent().getParent().getParent();
+        assertEquals("Water", root.getValue());
+        assertTrue(root.isRoot());
+        assertNull(root.getParent());
+        assertEquals(3, root.getChildren().size());
+        assertThrows(UnsupportedOperationException.class, () -> item.setValue("value"));
+        assertThrows(UnsupportedOperationException.class, () -> item.setLabel("label"));
+        assertThrows(UnsupportedOperationException.class, () -> item.setChildren(List.of()));
+        assertThrows(UnsupportedOperationException.class, () -> item.setParent(null));
+        assertThrows(UnsupportedOperationException.class, () -> root.getChildren().remove(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> root.getChildren().get(3));
+    }
+
+    @Test
+    void setItemListReplacesCompactTree() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        tree.compact();
+        tree.setItemList(List.of(new MultiselectDecisionItem(null, "Tennis")));
+        assertFalse(tree.isCompact());
+        assertEquals(1, tree.getItemList().size());
+        assertArrayEquals(new String[0], tree.getChildLabels(0));
+    }
+
+    @Test
+    void nullStrings() {
+        MultiselectDecisionTree tree = new MultiselectDecisionTree();
+        tree.setItemList(List.of(new MultiselectDecisionItem(null, null)));
+        tree.compact();
+        assertNull(tree.getItemList().get(0).getLabel());
+        assertNull(tree.getItemList().get(0).getValue());
+    }
+
+    @Test
+    void findCoordinates() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectDecisionTree compactTree = MultiselectDecisionTree.parse(INPUT_CSV);
+        compactTree.compact();
+        for (String[] path : new String[][]{{"Water", "Surfing", "England", "Bristol Surf Team"}, {"Ball", "Handball"}, {"Water", "Wakeboarding", "Austria"}, {}, {"Ball", "Surfing"}, {"Wakeboarding"}}) {
+            assertArrayEquals(tree.findCoordinates(path), compactTree.findCoordinates(path));
+        }
+        assertArrayEquals(new Integer[]{0, 0, 1, 0}, compactTree.findCoordinates("Water", "Wakeboarding", "Austria", "WSC Wien"));
+        assertNull(compactTree.findCoordinates("Ball", "Surfing"));
+    }
+
+    @Test
+    void getChildLabelPage() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectDecisionTree compactTree = MultiselectDecisionTree.parse(INPUT_CSV);
+        compactTree.compact();
+        for (Integer[] coordinates : new Integer[][]{{}, {0}, {1}, {0, 0}, {0, 0, 1}}) {
+            for (int offset = -1; offset < 4; ++offset) {
+                MultiselectItemPage expected = tree.getChildLabelPage(offset, 2, coordinates);
+                MultiselectItemPage page = compactTree.getChildLabelPage(offset, 2, coordinates);
+                assertArrayEquals(expected.getLabels(), page.getLabels());
+                assertEquals(expected.getOffset(), page.getOffset());
+                assertEquals(expected.getTotal(), page.getTotal());
+            }
+        }
+        assertArrayEquals(new String[]{"Alternative team name"}, compactTree.getChildLabelPage(0, 2, 0, 1, 0).getLabels());
+    }
+}
@@ -0,0 +1,63 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MultiselectConfigurationCacheTest {
+    /** Configuration text used in tests. */
+    private static final String FIRST = "H,Sport\nV,SPORT\nC,Tennis\n";
+
+    /** Another configuration text used in tests. */
+    private static final String SECOND = "H,Sport\nV,SPORT\nC,Football\n";
+
+    @Test
+    void getAndTake() {
+        MultiselectConfigurationCache cache = new MultiselectConfigurationCache(100_000);
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(FIRST);
+        assertNull(cache.get(FIRST));
+        cache.put(FIRST, tree, "warning");
+        MultiselectConfigurationCache.Entry entry = cache.get(new String(FIRST.toCharArray()));
+        assertNotNull(entry);
+        assertSame(tree, entry.getDecisionTree());
+        assertEquals("warning", entry.getValidationResult());
+        assertEquals(new MultiselectMemoryEstimator().add(tree).getBytes(), cache.getWeight());
+
+        // taking an entry removes it from the cache
+        assertSame(tree, cache.take(FIRST).getDecisionTree());
+        assertNull(cache.take(FIRST));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        // every empty tree has the same estimated size, the cache holds two of them
+        long treeSize = new MultiselectMemoryEstimator().add(new MultiselectDecisionTree()).getBytes();
+        MultiselectConfigurationCache cache = new MultiselectConfigurationCache(2 * treeSize);
+        assertEquals(0, cache.getHitRate());
+        cache.put(FIRST, new MultiselectDecisionTree(), null);
+        cache.put(SECOND, new MultiselectDecisionTree(), null);
+        assertEquals(2, cache.size());
+
+        // accessing the first entry makes the second one the least recently used
+        assertNotNull(cache.get(FIRST));
+        cache.put("H,Sport\nV,SPORT\n", new MultiselectDecisionTree(), null);
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(SECOND));
+        assertNotNull(cache.get(FIRST));
+        assertEquals(2 * treeSize, cache.getWeight());
+
+        // trees exceeding the limit are not cached
+        String large = SyntheticConfigurations.createCsv(3, 5);
+        cache.put(large, MultiselectDecisionTree.parse(large), null);
+        assertNull(cache.get(large));
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,82 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectCoordinateIndexTest {
+    /** Input to be used in tests. */
+    private static final MultiselectDecisionTree INPUT = MultiselectDecisionTree.parse("H,Type,Sport,Country,Team\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY,SELECTED_TEAM\nC,Water,Wakeboarding,Germany,WSC Duisburg Rheinhausen\nC,Water,Wakeboarding,Germany,WSC Paderborn\nC,Water,Wakeboarding,Austria,WSC Wien\nT,,,,Alternative team name\nC,Water,Waterball,Germany,Waterball Team\nC,Water,Surfing,England,Bristol Surf Team\nC,Ball,Football,France,Paris St. Germain\nT,,,,Alternative team name\nC,Ball,Handball,Germany,THW Kiel\n");
+
+    @Test
+    void getChildLabels() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(INPUT.getItemList());
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, index.getChildLabels(0));
+        assertArrayEquals(new String[]{"Alternative team name"}, index.getChildLabels(0, 1, null, 0));
+        assertArrayEquals(new String[0], index.getChildLabels(0, 1, 0, 0));
+        assertArrayEquals(new String[0], index.getChildLabels());
+        assertNotSame(index.getChildLabels(0), index.getChildLabels(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getChildLabels(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getChildLabels(0, 0, 0, 0, 0));
+    }
+
+    @Test
+    void getDependentChildLabels() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(INPUT.getItemList());
+        String[][] labels = index.getDependentChildLabels(4, 0, 2);
+        assertEquals(2, labels.length);
+        assertArrayEquals(new String[]{"England"}, labels[0]);
+        assertArrayEquals(new String[]{"Bristol Surf Team"}, labels[1]);
+        assertEquals(1, index.getDependentChildLabels(3, 0, 2).length);
+        assertEquals(0, index.getDependentChildLabels(4).length);
+    }
+
+    @Test
+    void emptyTree() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(Collections.emptyList());
+        assertArrayEquals(new String[0], index.getChildLabels());
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getChildLabels(0));
+    }
+
+    @Test
+    void findCoordinates() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(INPUT.getItemList());
+        assertArrayEquals(new Integer[]{0, 2, 0, 0}, index.findCoordinates("Water", "Surfing", "England", "Bristol Surf Team"));
+        assertArrayEquals(new Integer[]{1, 1}, index.findCoordinates("Ball", "Handball"));
+        assertArrayEquals(new Integer[0], index.findCoordinates());
+        assertNull(index.findCoordinates("Ball", "Surfing"));
+        assertNull(index.findCoordinates("Water", "Surfing", "England", "Bristol Surf Team", "too deep"));
+    }
+
+    @Test
+    void valuesAreMappedOnFirstLookup() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(INPUT.getItemList());
+        index.getChildLabels(0, 2);
+        assertFalse(index.hasValueIndex());
+        assertArrayEquals(new Integer[]{1}, index.findCoordinates("Ball"));
+        assertTrue(index.hasValueIndex());
+    }
+
+    @Test
+    void getChildLabelPage() {
+        MultiselectCoordinateIndex index = MultiselectCoordinateIndex.build(INPUT.getItemList());
+        MultiselectItemPage page = index.getChildLabelPage(1, 5, 0);
+        assertArrayEquals(new String[]{"Waterball", "Surfing"}, page.getLabels());
+        assertEquals(1, page.getOffset());
+        assertEquals(3, page.getTotal());
+
+        // first column without coordinates, offsets out of range are limited
+        assertArrayEquals(new String[]{"Water"}, index.getChildLabelPage(-1, 1).getLabels());
+        page = index.getChildLabelPage(7, 5);
+        assertEquals(0, page.getLabels().length);
+        assertEquals(2, page.getOffset());
+    }
+}
@@ -4,11 +4,13 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Queue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -122,4 +124,29 @@ class MultiselectDecisionItemTest {
         MultiselectDecisionItem.visitSubTree(visitor, Collections.singletonList(item), descriptors);
         verify(item, times(0)).visitSubTree(any(), any());
     }
+
+    @Test
+    void structuralEquality() {
+        String csv = "H,Type,Sport\nV,TYPE,SPORT\nC,Water,Surfing\nC,Water,Sailing\nC,Ball,Football\n";
+        MultiselectDecisionItem water = MultiselectDecisionTree.parse(csv).getItemList().get(0);
+        MultiselectDecisionItem otherWater = MultiselectDecisionTree.parse(csv).getItemList().get(0);
+        assertEquals(water, otherWater);
+        assertEquals(water.hashCode(), otherWater.hashCode());
+        assertNotEquals(water, MultiselectDecisionTree.parse(csv).getItemList().get(1));
+        assertNotEquals(water, "Water");
+
+        // changing a child resets the cached hash codes up to the root item
+        int hash = water.hashCode();
+        water.getChildren().get(1).setValue("Rowing");
+        assertNotEquals(hash, water.hashCode());
+        assertNotEquals(water, otherWater);
+        otherWater.getChildren().get(1).setValue("Rowing");
+        assertEquals(water, otherWater);
+        assertEquals(water.hashCode(), otherWater.hashCode());
+
+        otherWater.getChildren().get(0).setLabel("Surfing label");
+        assertNotEquals(water, otherWater);
+        otherWater.setChildren(new ArrayList<>(water.getChildren()));
+        assertEquals(water.hashCode(), otherWater.hashCode());
+    }
 }
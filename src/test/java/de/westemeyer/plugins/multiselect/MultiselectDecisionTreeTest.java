@@ -3,6 +3,7 @@ package de.westemeyer.plugins.multiselect;
 import de.westemeyer.plugins.multiselect.parser.ConfigSerialization;
 import de.westemeyer.plugins.multiselect.parser.CsvWriter;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.XStream2;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -10,6 +11,8 @@ import org.junit.jupiter.params.provider.CsvSource;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.Serial;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -17,8 +20,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MultiselectDecisionTreeTest {
     /** Csv input content for tests. */
@@ -135,6 +144,47 @@ class MultiselectDecisionTreeTest {
         }
     }
 
+    @Test
+    void childLabelsFollowItemList() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        assertArrayEquals(new String[]{"Germany", "Austria"}, tree.getChildLabels(0, 0));
+        tree.setItemList(Collections.singletonList(createItem(null, "Tennis", createItem("Alternative label", "Oppumer TC"))));
+        assertArrayEquals(new String[]{"Alternative label"}, tree.getChildLabels(0));
+        assertEquals(1, tree.getDependentChildLabels(0).length);
+    }
+
+    @Test
+    void visitSubTreeDoesNotAllocatePerItem() throws Exception {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(SyntheticConfigurations.createCsv(4, 10));
+        int[] visited = new int[1];
+        MultiselectDecisionItemVisitor visitor = (item, column) -> {
+            ++visited[0];
+            return true;
+        };
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // warm up, then measure bytes allocated by a complete traversal
+        tree.visitSubTree(visitor);
+        visited[0] = 0;
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        tree.visitSubTree(visitor);
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(11110, visited[0]);
+        assertTrue(allocated < visited[0], "Traversal allocated " + allocated + " bytes for " + visited[0] + " items");
+    }
+
+    @Test
+    void visitSelectedItemsWithMissingColumns() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse("H,Sport\nV,SELECTED_SPORT\nC,Tennis,Oppumer TC\n");
+        List<String> columns = new ArrayList<>();
+        tree.visitSelectedItems(MultiselectParameterDefinition.createCoordinates(0, 0), (item, column) -> {
+            columns.add(column == null ? null : column.getVariableName());
+            return true;
+        });
+        assertEquals(Arrays.asList(SELECTED_SPORT, null), columns);
+    }
+
     private MultiselectDecisionItem createItem(String label, String value, MultiselectDecisionItem... children) {
         MultiselectDecisionItem item = new MultiselectDecisionItem(null, null);
         if (label != null) {
@@ -155,4 +205,209 @@ class MultiselectDecisionTreeTest {
         descriptor.setVariableName(variable);
         return descriptor;
     }
+
+    @Test
+    void initialValuesAreNotPersisted() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(SyntheticConfigurations.createCsv(3, 2));
+        XStream2 xStream = new XStream2();
+        String xml = xStream.toXML(tree);
+        assertFalse(xml.contains("initialValues"));
+
+        // initial values are determined again after deserialization
+        MultiselectDecisionTree restored = (MultiselectDecisionTree) xStream.fromXML(xml);
+        List<MultiselectVariableDescriptor> descriptors = restored.getVariableDescriptions();
+        assertEquals(restored.getInitialValuesForColumn(0), descriptors.get(0).getInitialValues());
+        assertEquals(restored.getInitialValuesForColumn(2), descriptors.get(2).getInitialValues());
+        assertEquals(2, descriptors.get(2).getInitialValues().size());
+    }
+
+    @Test
+    void csvTextIsKeptUntilTreeChanges() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(SyntheticConfigurations.createCsv(3, 2));
+        String text = tree.toString();
+        assertSame(text, tree.toString());
+
+        tree.setItemList(tree.getItemList().subList(0, 1));
+        String changed = tree.toString();
+        assertNotSame(text, changed);
+        assertTrue(text.startsWith(changed));
+
+        tree.setVariableDescriptions(tree.getVariableDescriptions().subList(0, 3));
+        assertNotSame(changed, tree.toString());
+    }
+
+    @Test
+    void searchChildLabels() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        assertArrayEquals(new int[]{1}, tree.searchChildLabels("b", 10).getIndices());
+        assertArrayEquals(new int[]{0, 1}, tree.searchChildLabels("wa", 10, 0).getIndices());
+        assertArrayEquals(new int[]{0, 2}, tree.searchChildLabels("ING", 10, 0).getIndices());
+        assertArrayEquals(new String[]{"Alternative team name"}, tree.searchChildLabels("team", 10, 1, 1, 0).getLabels());
+
+        // search index is rebuilt for new items
+        tree.setItemList(MultiselectDecisionTree.parse("H,Type\nV,SELECTED_TYPE\nC,Wind\n").getItemList());
+        assertArrayEquals(new String[]{"Wind"}, tree.searchChildLabels("w", 10).getLabels());
+    }
+
+    @Test
+    void getMaxItemCount() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        assertEquals(2, tree.getMaxItemCount(0));
+        assertEquals(3, tree.getMaxItemCount(1));
+        assertEquals(2, tree.getMaxItemCount(2));
+        assertEquals(2, tree.getMaxItemCount(3));
+        assertEquals(0, tree.getMaxItemCount(4));
+        tree.compact();
+        assertEquals(3, tree.getMaxItemCount(1));
+    }
+
+    @Test
+    void getDependentChildLabelPages() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectItemPage[] pages = tree.getDependentChildLabelPages(2, 0);
+        assertEquals(3, pages.length);
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball"}, pages[0].getLabels());
+        assertEquals(3, pages[0].getTotal());
+        assertArrayEquals(new String[]{"Germany", "Austria"}, pages[1].getLabels());
+        assertArrayEquals(new String[]{"WSC Duisburg Rheinhausen", "WSC Paderborn"}, pages[2].getLabels());
+        assertEquals(0, tree.getDependentChildLabelPages(2, 1, 1, 0, 0).length);
+    }
+
+    @Test
+    void getContentHash() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        String hash = tree.getContentHash();
+        assertEquals(16, hash.length());
+        assertEquals(hash, MultiselectDecisionTree.parse(INPUT_CSV).getContentHash());
+
+        // compact representation has the same content
+        MultiselectDecisionTree compactTree = MultiselectDecisionTree.parse(INPUT_CSV);
+        compactTree.compact();
+        assertEquals(hash, compactTree.getContentHash());
+
+        // values, labels and structure are part of the hash
+        assertNotEquals(hash, MultiselectDecisionTree.parse(INPUT_CSV.replace("WSC Wien", "WSC Linz")).getContentHash());
+        assertNotEquals(hash, MultiselectDecisionTree.parse(INPUT_CSV.replace("Alternative team name", "Team")).getContentHash());
+        assertNotEquals(MultiselectDecisionTree.parse("H,A,B\nV,A,B\nC,ab,c\n").getContentHash(), MultiselectDecisionTree.parse("H,A,B\nV,A,B\nC,a,bc\n").getContentHash());
+
+        // hash is computed again after changes
+        tree.setItemList(MultiselectDecisionTree.parse(INPUT_CSV.replace("WSC Wien", "WSC Linz")).getItemList());
+        assertNotEquals(hash, tree.getContentHash());
+    }
+
+    @Test
+    void structuralEquality() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectDecisionTree otherTree = MultiselectDecisionTree.parse(INPUT_CSV);
+        assertEquals(tree, otherTree);
+        assertEquals(tree.hashCode(), otherTree.hashCode());
+
+        // compact trees are equal to trees with item objects
+        MultiselectDecisionTree compactTree = MultiselectDecisionTree.parse(INPUT_CSV);
+        compactTree.compact();
+        assertEquals(tree, compactTree);
+        assertEquals(compactTree, tree);
+        assertEquals(tree.hashCode(), compactTree.hashCode());
+        assertEquals(compactTree.getItemList().get(0), compactTree.getItemList().get(0));
+
+        // items and variables are compared
+        assertNotEquals(tree, MultiselectDecisionTree.parse(INPUT_CSV.replace("WSC Wien", "WSC Linz")));
+        assertNotEquals(tree, MultiselectDecisionTree.parse(INPUT_CSV.replace("SELECTED_TEAM", "TEAM")));
+        otherTree.getItemList().get(1).getChildren().get(0).setValue("Rugby");
+        assertNotEquals(tree, otherTree);
+        assertNotEquals(tree, new Object());
+    }
+
+    @Test
+    void snapshot() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        String csv = tree.toString();
+        assertFalse(tree.isFrozen());
+
+        MultiselectDecisionTree snapshot = tree.snapshot();
+        assertTrue(snapshot.isFrozen());
+        assertSame(snapshot, snapshot.snapshot());
+        assertEquals(tree, snapshot);
+        assertEquals(csv, snapshot.toString());
+        assertEquals(tree.getVariableDescriptions().get(3).getUuid(), snapshot.getVariableDescriptions().get(3).getUuid());
+        assertEquals(3, snapshot.getVariableDescriptions().get(3).getColumnIndex());
+        assertEquals("WSC Duisburg Rheinhausen", snapshot.getVariableDescriptions().get(3).getInitialValues().get(0).getValue());
+        assertArrayEquals(new String[]{"Germany", "Austria"}, snapshot.getChildLabels(0, 0));
+
+        // neither tree, descriptors nor items of the snapshot can be changed
+        MultiselectDecisionItem item = snapshot.getItemByCoordinates(0, 0);
+        List<MultiselectDecisionItem> items = new ArrayList<>();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setItemList(items));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setVariableDescriptions(new ArrayList<>()));
+        assertThrows(UnsupportedOperationException.class, snapshot::compact);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getItemList().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getVariableDescriptions().get(0).setLabel("Kind"));
+        assertThrows(UnsupportedOperationException.class, () -> item.setValue("Rugby"));
+        assertThrows(UnsupportedOperationException.class, () -> item.getChildren().clear());
+        snapshot.updateInitialValues();
+        assertEquals(2, snapshot.getVariableDescriptions().get(2).getInitialValues().size());
+
+        // the original tree can still be replaced, which does not affect the snapshot
+        tree.setItemList(items);
+        tree.getVariableDescriptions().get(0).setLabel("Kind");
+        assertEquals(csv, snapshot.toString());
+        assertEquals("Type", snapshot.getVariableDescriptions().get(0).getLabel());
+    }
+
+    @Test
+    void snapshotIsIndependentOfSource() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectDecisionTree snapshot = tree.toBuilder().build();
+        String csv = snapshot.toString();
+
+        // items of the source tree can still be changed, without affecting the snapshot
+        MultiselectDecisionItem item = tree.getItemByCoordinates(0, 0);
+        item.setValue("Kitesurfing");
+        item.getChildren().add(new MultiselectDecisionItem("Spain", "Spain"));
+        tree.getItemList().get(1).setLabel("Balls");
+        assertEquals("Wakeboarding", snapshot.getItemByCoordinates(0, 0).getValue());
+        assertEquals(2, snapshot.getItemByCoordinates(0, 0).getChildren().size());
+        assertEquals(csv, snapshot.toString());
+        assertNotEquals(tree, snapshot);
+
+        // copies are connected to their own parents
+        MultiselectDecisionItem copy = snapshot.getItemByCoordinates(0, 0, 0);
+        assertSame(snapshot.getItemByCoordinates(0, 0), copy.getParent());
+        assertSame(snapshot.getItemList().get(0), copy.getParent().getParent());
+    }
+
+    @Test
+    void snapshotBuilder() {
+        MultiselectDecisionItem item = new MultiselectDecisionItem("Label", "value");
+        MultiselectDecisionTree snapshot = MultiselectDecisionTree.builder()
+                .variableDescriptions(List.of(new MultiselectVariableDescriptor("Type", SELECTED_TYPE)))
+                .itemList(List.of(item))
+                .build();
+        assertTrue(snapshot.isFrozen());
+        assertFalse(snapshot.isCompact());
+        assertNotSame(item, snapshot.getItemList().get(0));
+        assertEquals(List.of(item), snapshot.getVariableDescriptions().get(0).getInitialValues());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getItemList().get(0).setLabel("Other"));
+
+        // taking ownership freezes the items in place instead of copying them
+        MultiselectDecisionItem ownedItem = new MultiselectDecisionItem("Label", "value");
+        MultiselectDecisionTree ownedSnapshot = MultiselectDecisionTree.builder().itemList(List.of(ownedItem)).takeOwnership(true).build();
+        assertSame(ownedItem, ownedSnapshot.getItemList().get(0));
+        assertThrows(UnsupportedOperationException.class, () -> ownedItem.setLabel("Other"));
+
+        // read-only items of other snapshots are shared
+        assertSame(ownedItem, MultiselectDecisionTree.builder().itemList(List.of(ownedItem)).build().getItemList().get(0));
+
+        // compacted snapshots keep items in compact representation
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_CSV);
+        MultiselectDecisionTree compactSnapshot = tree.toBuilder().compact(true).build();
+        assertTrue(compactSnapshot.isFrozen());
+        assertTrue(compactSnapshot.isCompact());
+        assertEquals(tree, compactSnapshot);
+        assertTrue(compactSnapshot.toBuilder().build().isCompact());
+
+        // items have been copied into the compact representation, so the original ones can still be changed
+        tree.getItemList().get(0).setValue("Air");
+        assertNotEquals(tree, compactSnapshot);
+    }
 }
@@ -0,0 +1,55 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectLabelSearchTest {
+    /** Labels to search in. */
+    private static final String[] LABELS = {"Wakeboarding", "Waterball", "Surfing", "Water skiing", null, "Kite surfing"};
+
+    @Test
+    void prefixMatchesComeFirst() {
+        MultiselectLabelSearch search = new MultiselectLabelSearch(LABELS);
+        MultiselectSearchResult result = search.search("SURF", 10);
+        assertArrayEquals(new int[]{2, 5}, result.getIndices());
+        assertArrayEquals(new String[]{"Surfing", "Kite surfing"}, result.getLabels());
+        assertTrue(result.isComplete());
+
+        // prefix matches in alphabetical order, then other matches in item order
+        result = search.search("ing", 10);
+        assertArrayEquals(new int[]{0, 2, 3, 5}, result.getIndices());
+        result = search.search("wat", 10);
+        assertArrayEquals(new int[]{3, 1}, result.getIndices());
+    }
+
+    @Test
+    void limitMatches() {
+        MultiselectLabelSearch search = new MultiselectLabelSearch(LABELS);
+        MultiselectSearchResult result = search.search("ing", 3);
+        assertArrayEquals(new int[]{0, 2, 3}, result.getIndices());
+        assertFalse(result.isComplete());
+
+        result = search.search("wa", 1);
+        assertArrayEquals(new String[]{"Wakeboarding"}, result.getLabels());
+        assertFalse(result.isComplete());
+
+        result = search.search("xyz", 1);
+        assertArrayEquals(new int[0], result.getIndices());
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    void emptySearchText() {
+        MultiselectLabelSearch search = new MultiselectLabelSearch(LABELS);
+        MultiselectSearchResult result = search.search("", 2);
+        assertArrayEquals(new int[]{0, 1}, result.getIndices());
+        assertFalse(result.isComplete());
+
+        result = search.search(null, 10);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, result.getIndices());
+        assertTrue(result.isComplete());
+    }
+}
@@ -0,0 +1,66 @@
+package de.westemeyer.plugins.multiselect;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectManagementLinkTest {
+    /** Configuration used in tests. */
+    private static final String CONFIGURATION = "H,Type,Sport\nV,SELECTED_TYPE,SELECTED_SPORT\nC,release,Football\nC,debug,Football\nC,debug,Handball\n";
+
+    @Test
+    void statistics() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition("name", "description", MultiselectDecisionTree.parse(CONFIGURATION), MultiselectConfigurationFormat.CSV);
+        MultiselectParameterStatistics statistics = MultiselectParameterStatistics.of("folder/job", definition);
+        assertEquals("folder/job", statistics.getJobName());
+        assertEquals("name", statistics.getParameterName());
+        assertEquals(CONFIGURATION.length(), statistics.getConfigurationLength());
+        assertTrue(statistics.isMaterialized());
+        assertEquals(5, statistics.getNodeCount());
+        assertEquals(3, statistics.getLeafCount());
+        assertEquals(2, statistics.getDepth());
+        assertTrue(statistics.getDuplicateStringRatio() >= 0 && statistics.getDuplicateStringRatio() < 1);
+        assertTrue(statistics.getEstimatedBytes() > 0);
+
+        // statistics without decision tree
+        MultiselectParameterStatistics empty = MultiselectParameterStatistics.of("job", new MultiselectParameterDefinition("empty", "description"));
+        assertFalse(empty.isMaterialized());
+        assertEquals(0, empty.getConfigurationLength());
+        assertEquals(-1, empty.getNodeCount());
+        assertEquals(-1, empty.getLeafCount());
+        assertEquals(-1, empty.getDepth());
+        assertEquals(-1, empty.getEstimatedBytes());
+    }
+
+    @Test
+    void createReport() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition("name", "description", MultiselectDecisionTree.parse(CONFIGURATION), MultiselectConfigurationFormat.CSV);
+        MultiselectConfigurationCache cache = new MultiselectConfigurationCache(1024);
+        JSONObject report = MultiselectManagementLink.createReport(MultiselectMetrics.getTimers(), cache, List.of(MultiselectParameterStatistics.of("job", definition)));
+
+        JSONArray timers = report.getJSONArray("timers");
+        assertEquals(MultiselectMetrics.Operation.values().length, timers.size());
+        assertEquals("PARSE_CSV", timers.getJSONObject(0).getString("operation"));
+        assertEquals("CsvParser.analyzeConfiguration", timers.getJSONObject(0).getString("method"));
+
+        assertTrue(report.getJSONObject("stringPool").has("bytesSaved"));
+        assertEquals(0, report.getJSONObject("validationCache").getInt("size"));
+
+        JSONObject parameter = report.getJSONArray("parameters").getJSONObject(0);
+        assertEquals("job", parameter.getString("job"));
+        assertEquals("name", parameter.getString("parameter"));
+        assertEquals(5, parameter.getLong("nodeCount"));
+        assertEquals(3, parameter.getLong("leafCount"));
+        assertEquals(2, parameter.getInt("depth"));
+        assertTrue(parameter.has("duplicateStringRatio"));
+
+        // validation cache is optional
+        assertFalse(MultiselectManagementLink.createReport(List.of(), null, List.of()).has("validationCache"));
+    }
+}
@@ -0,0 +1,95 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectMemoryEstimatorTest {
+    /** Configuration used in tests. */
+    private static final String CONFIGURATION = "H,Type,Sport\nV,SELECTED_TYPE,SELECTED_SPORT\nC,release,Football\nC,debug,Football\nC,debug,Handball\n";
+
+    @Test
+    void countItems() {
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator().add(MultiselectDecisionTree.parse(CONFIGURATION));
+        assertEquals(5, estimator.getNodeCount());
+        assertEquals(3, estimator.getLeafCount());
+        assertTrue(estimator.getBytes() > 0);
+    }
+
+    @Test
+    void compactTree() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(CONFIGURATION);
+        MultiselectDecisionTree compactTree = MultiselectDecisionTree.parse(CONFIGURATION);
+        compactTree.compact();
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator().add(tree);
+        MultiselectMemoryEstimator compactEstimator = new MultiselectMemoryEstimator().add(compactTree);
+        assertEquals(estimator.getNodeCount(), compactEstimator.getNodeCount());
+        assertEquals(estimator.getLeafCount(), compactEstimator.getLeafCount());
+        assertTrue(compactEstimator.getBytes() < estimator.getBytes());
+    }
+
+    @Test
+    void indicesBuiltOnDemand() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(CONFIGURATION);
+        long bytes = new MultiselectMemoryEstimator().add(tree).getBytes();
+
+        // coordinate index, value maps and search index add to the size once they have been built
+        tree.getChildLabels(1);
+        long indexBytes = new MultiselectMemoryEstimator().add(tree).getBytes();
+        assertTrue(indexBytes > bytes);
+        tree.findCoordinates("debug", "Handball");
+        long valueBytes = new MultiselectMemoryEstimator().add(tree).getBytes();
+        assertTrue(valueBytes > indexBytes);
+        tree.searchChildLabels("ball", 10, 1);
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator().add(tree);
+        assertTrue(estimator.getBytes() > valueBytes);
+        assertEquals(5, estimator.getNodeCount());
+    }
+
+    @Test
+    void countObjectsOnce() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(CONFIGURATION);
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator().add(tree);
+        long bytes = estimator.getBytes();
+        long strings = estimator.getStringCount();
+        assertEquals(bytes, estimator.add(tree).getBytes());
+        assertEquals(strings, estimator.getStringCount());
+
+        // pooled item strings are shared between trees
+        MultiselectMemoryEstimator twoTrees = new MultiselectMemoryEstimator().add(tree).add(MultiselectDecisionTree.parse(CONFIGURATION));
+        assertEquals(10, twoTrees.getNodeCount());
+        assertTrue(twoTrees.getBytes() < 2 * bytes);
+    }
+
+    @Test
+    void strings() {
+        MultiselectMemoryEstimator estimator = new MultiselectMemoryEstimator();
+        String latin1 = new String("abc".toCharArray());
+        estimator.string(latin1);
+        long objectBytes = align(MultiselectMemoryEstimator.OBJECT_HEADER + MultiselectMemoryEstimator.REFERENCE + Integer.BYTES + 2);
+        assertEquals(objectBytes + align(MultiselectMemoryEstimator.ARRAY_HEADER + 3), estimator.getBytes());
+        assertEquals(0.0, estimator.getDuplicateStringRatio());
+
+        // a copy counts as duplicate, the same instance does not count at all
+        estimator.string(new String("abc".toCharArray()));
+        estimator.string(latin1);
+        estimator.string(null);
+        assertEquals(2, estimator.getStringCount());
+        assertEquals(0.5, estimator.getDuplicateStringRatio());
+
+        // characters outside of Latin-1 take two bytes
+        MultiselectMemoryEstimator utf16 = new MultiselectMemoryEstimator();
+        utf16.string("\u20ac\u20ac\u20ac\u20ac\u20ac");
+        assertEquals(objectBytes + align(MultiselectMemoryEstimator.ARRAY_HEADER + 10), utf16.getBytes());
+    }
+
+    /**
+     * Round size up to object alignment.
+     * @param size size in bytes
+     * @return aligned size
+     */
+    private static long align(long size) {
+        return (size + 7) / 8 * 8;
+    }
+}
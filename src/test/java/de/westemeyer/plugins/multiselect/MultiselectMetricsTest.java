@@ -0,0 +1,44 @@
+package de.westemeyer.plugins.multiselect;
+
+import hudson.util.FormValidation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectMetricsTest {
+    /** Configuration used in tests. */
+    private static final String CONFIGURATION = "H,Type,Sport\nV,SELECTED_TYPE,SELECTED_SPORT\nC,release,Football\nC,debug,Handball\n";
+
+    @Test
+    void recordOperations() throws IOException {
+        MultiselectMetrics.Timer parse = MultiselectMetrics.getTimer(MultiselectMetrics.Operation.PARSE_CSV);
+        MultiselectMetrics.Timer check = MultiselectMetrics.getTimer(MultiselectMetrics.Operation.CHECK_CONFIGURATION);
+        MultiselectMetrics.Timer itemList = MultiselectMetrics.getTimer(MultiselectMetrics.Operation.GET_ITEM_LIST);
+        long parseCount = parse.getCount();
+        long checkCount = check.getCount();
+        long itemListCount = itemList.getCount();
+
+        // validation parses the configuration once
+        assertEquals(FormValidation.Kind.OK, new MultiselectParameterDefinition.DescriptorImpl().checkConfiguration(null, null, CONFIGURATION).kind);
+        assertTrue(parse.getCount() >= parseCount + 1);
+        assertTrue(check.getCount() >= checkCount + 1);
+
+        // item lists are counted even if there is no tree
+        new MultiselectParameterDefinition("name", "description").getItemList(new Integer[]{0});
+        assertTrue(itemList.getCount() >= itemListCount + 1);
+        assertTrue(itemList.getMaxMillis() >= 0);
+        assertTrue(itemList.getTotalMillis() >= itemList.getMaxMillis());
+    }
+
+    @Test
+    void timers() {
+        assertEquals(MultiselectMetrics.Operation.values().length, MultiselectMetrics.getTimers().size());
+        for (MultiselectMetrics.Operation operation : MultiselectMetrics.Operation.values()) {
+            assertEquals(operation, MultiselectMetrics.getTimer(operation).getOperation());
+            assertTrue(MultiselectMetrics.getTimer(operation).getMeanMillis() >= 0);
+        }
+    }
+}
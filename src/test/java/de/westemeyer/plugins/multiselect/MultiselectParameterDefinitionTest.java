@@ -2,8 +2,10 @@ package de.westemeyer.plugins.multiselect;
 
 import de.westemeyer.plugins.multiselect.parser.MultiselectParameterParser;
 import hudson.EnvVars;
+import hudson.cli.CLICommand;
 import hudson.model.ParameterValue;
 import hudson.util.FormValidation;
+import hudson.util.XStream2;
 import net.sf.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -11,16 +13,28 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.kohsuke.stapler.StaplerRequest2;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 import static de.westemeyer.plugins.multiselect.MultiselectConfigurationFormat.CSV;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class MultiselectParameterDefinitionTest {
     /** Input csv for tests. */
@@ -83,6 +97,26 @@ class MultiselectParameterDefinitionTest {
         assertEquals(0, itemList.length);
     }
 
+    @Test
+    void getDependentItemLists() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        String[][] itemLists = definition.getDependentItemLists(new Integer[]{0});
+        assertEquals(3, itemLists.length);
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, itemLists[0]);
+        assertArrayEquals(new String[]{GERMANY, "Austria"}, itemLists[1]);
+        assertArrayEquals(new String[]{"WSC Duisburg Rheinhausen", "WSC Paderborn"}, itemLists[2]);
+
+        itemLists = definition.getDependentItemLists(new Integer[]{1, 0});
+        assertEquals(2, itemLists.length);
+        assertArrayEquals(new String[]{"France"}, itemLists[0]);
+        assertArrayEquals(new String[]{"Paris St. Germain"}, itemLists[1]);
+
+        assertEquals(0, definition.getDependentItemLists(new Integer[]{0, 0, 0, 0}).length);
+        assertEquals(0, definition.getDependentItemLists(new Integer[0]).length);
+        definition.setDecisionTree(null);
+        assertEquals(0, definition.getDependentItemLists(new Integer[]{0}).length);
+    }
+
     @ParameterizedTest(name = "Depending IDs for {0}")
     @CsvSource({"first item,0,3", "second item,1,2", "third item,2,1", "fourth item,3,0"})
     void getDependingVariableIds(String name, int index, int resultLength) {
@@ -155,13 +189,13 @@ class MultiselectParameterDefinitionTest {
     @Test
     void doCheckConfiguration() throws IOException {
         MultiselectParameterDefinition.DescriptorImpl descriptor = new MultiselectParameterDefinition.DescriptorImpl();
-        FormValidation formValidation = descriptor.doCheckConfiguration(INPUT_STRING);
+        FormValidation formValidation = descriptor.checkConfiguration(null, null, INPUT_STRING);
         assertEquals(FormValidation.Kind.OK, formValidation.kind);
         assertNull(formValidation.getMessage());
-        formValidation = descriptor.doCheckConfiguration(VALIDATION1_STRING);
+        formValidation = descriptor.checkConfiguration(null, null, VALIDATION1_STRING);
         assertEquals(Messages.FormValidation_NotEnoughColumns(3), formValidation.getMessage());
         assertEquals(FormValidation.Kind.WARNING, formValidation.kind);
-        formValidation = descriptor.doCheckConfiguration("");
+        formValidation = descriptor.checkConfiguration(null, null, "");
         assertEquals(Messages.FormValidation_ConfigurationIsEmpty(), formValidation.getMessage());
         assertEquals(FormValidation.Kind.ERROR, formValidation.kind);
     }
@@ -217,6 +251,10 @@ class MultiselectParameterDefinitionTest {
         MultiselectParameterDefinition actual = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
         actual.setUuid(value.getUuid());
         assertEquals(value, actual);
+        actual.setFormat(MultiselectConfigurationFormat.BINARY);
+        assertNotEquals(value, actual);
+        actual.setFormat(CSV);
+        assertEquals(value, actual);
         actual.setDecisionTree(new MultiselectDecisionTree());
         assertNotEquals(value, actual);
     }
@@ -234,4 +272,230 @@ class MultiselectParameterDefinitionTest {
         assertEquals(1, coordinates.size());
         assertEquals(100, coordinates.poll());
     }
+
+    @Test
+    void persistConfigurationText() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        XStream2 xStream = new XStream2();
+        String xml = xStream.toXML(definition);
+        assertTrue(xml.contains("<configuration>H,Type,Sport,Country,Team"));
+        assertFalse(xml.contains("itemList"));
+
+        MultiselectParameterDefinition restored = (MultiselectParameterDefinition) xStream.fromXML(xml);
+        assertEquals(definition, restored);
+        assertNotNull(restored.getDecisionTree());
+        assertEquals(INPUT_STRING, restored.getDecisionTree().toString());
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, restored.getItemList(new Integer[]{0}));
+    }
+
+    @Test
+    void migrateLegacyConfiguration() throws IOException {
+        MultiselectParameterDefinition definition;
+        try (InputStream inputStream = getClass().getResourceAsStream("legacyParameterDefinition.xml")) {
+            definition = (MultiselectParameterDefinition) new XStream2().fromXML(inputStream);
+        }
+        String csv = "H,Sport,Team\nV,SELECTED_SPORT,SELECTED_TEAM\nC,Tennis,Oppumer TC\nT,,Alternative label\nC,Tennis,TC Rumeln\nC,Football,FC Rumeln\n";
+        assertNotNull(definition.getDecisionTree());
+        assertEquals(csv, definition.getDecisionTree().toString());
+        assertArrayEquals(new String[]{"Oppumer TC", "Alternative label"}, definition.getItemList(new Integer[]{0}));
+        assertEquals(2, definition.getDecisionTree().getVariableDescriptions().get(1).getInitialValues().size());
+
+        // saving the migrated definition writes the configuration text only
+        String xml = new XStream2().toXML(definition);
+        assertTrue(xml.contains("<configuration>" + csv + "</configuration>"));
+        assertFalse(xml.contains("decisionTree"));
+    }
+
+    @Test
+    void publishSnapshot() {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(INPUT_STRING);
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, tree, CSV);
+        MultiselectDecisionTree snapshot = definition.getDecisionTree();
+        assertNotNull(snapshot);
+        assertTrue(snapshot.isFrozen());
+        assertEquals(tree.getVariableDescriptions().get(0).getUuid(), snapshot.getVariableDescriptions().get(0).getUuid());
+
+        // replacing the items of the original tree does not affect the definition
+        tree.setItemList(new ArrayList<>());
+        assertSame(snapshot, definition.getDecisionTree());
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, definition.getItemList(new Integer[]{0}));
+        assertEquals(INPUT_STRING, definition.getDecisionTree().toString());
+    }
+
+    @Test
+    void newInstanceReusesPreviousTree() {
+        MultiselectDecisionTree previous = new MultiselectParameterDefinition(NAME, DESCRIPTION, MultiselectDecisionTree.parse(INPUT_STRING), CSV).getDecisionTree();
+        String edited = INPUT_STRING.replace("Sport,Country", "Discipline,Country").replace("Wakeboarding", "Kitesurfing");
+        MultiselectParameterDefinition definition = MultiselectParameterDefinition.DescriptorImpl.newInstance(edited, NAME, DESCRIPTION, new MultiselectParameterParser(CSV), previous);
+        MultiselectDecisionTree tree = definition.getDecisionTree();
+        assertEquals(MultiselectDecisionTree.parse(edited), tree);
+
+        // unchanged columns keep their identifiers, subtrees are only taken over if incremental parsing is enabled
+        assertEquals(previous.getVariableDescriptions().get(0).getUuid(), tree.getVariableDescriptions().get(0).getUuid());
+        assertNotEquals(previous.getVariableDescriptions().get(1).getUuid(), tree.getVariableDescriptions().get(1).getUuid());
+        assertNotSame(previous.getItemList().get(1), tree.getItemList().get(1));
+    }
+
+    @Test
+    void materializeDecisionTreeOnFirstUse() {
+        XStream2 xStream = new XStream2();
+        String xml = xStream.toXML(new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV));
+        MultiselectParameterDefinition restored = (MultiselectParameterDefinition) xStream.fromXML(xml);
+        assertFalse(restored.isDecisionTreeMaterialized());
+        assertArrayEquals(new String[]{"Wakeboarding", "Waterball", "Surfing"}, restored.getItemList(new Integer[]{0}));
+        assertTrue(restored.isDecisionTreeMaterialized());
+    }
+
+    @Test
+    void newInstanceReusesValidatedConfiguration() throws IOException {
+        MultiselectParameterDefinition.DescriptorImpl descriptor = new MultiselectParameterDefinition.DescriptorImpl();
+        MultiselectConfigurationCache cache = descriptor.getValidationCache();
+        assertEquals(FormValidation.Kind.WARNING, descriptor.checkConfiguration(null, null, VALIDATION1_STRING).kind);
+        assertEquals(FormValidation.Kind.WARNING, descriptor.checkConfiguration(null, null, VALIDATION1_STRING).kind);
+        assertEquals(FormValidation.Kind.OK, descriptor.checkConfiguration(null, null, INPUT_STRING).kind);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.size());
+
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("configuration", INPUT_STRING);
+        jsonObject.put("name", NAME);
+        jsonObject.put("description", DESCRIPTION);
+        MultiselectParameterDefinition definition = (MultiselectParameterDefinition) descriptor.newInstance((StaplerRequest2) null, jsonObject);
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.size());
+        assertNotNull(definition.getDecisionTree());
+        assertEquals(INPUT_STRING, definition.getDecisionTree().toString());
+    }
+
+    @Test
+    void persistBinaryConfiguration() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        definition.setFormat(MultiselectConfigurationFormat.BINARY);
+        XStream2 xStream = new XStream2();
+        String xml = xStream.toXML(definition);
+        assertFalse(xml.contains("Wakeboarding"));
+
+        MultiselectParameterDefinition restored = (MultiselectParameterDefinition) xStream.fromXML(xml);
+        assertEquals(MultiselectConfigurationFormat.BINARY, restored.getFormat());
+        assertNotNull(restored.getDecisionTree());
+        assertEquals(INPUT_STRING, restored.getDecisionTree().toString());
+    }
+
+    @Test
+    void createValueFromValues() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        Map<String, String> values = new HashMap<>();
+        values.put(SELECTED_TYPE, "Water");
+        values.put(SELECTED_SPORT, "Wakeboarding");
+        values.put(SELECTED_COUNTRY, "Austria");
+        values.put("OTHER_PARAMETER", "ignored");
+        MultiselectParameterValue value = definition.createValueFromValues(values);
+        assertEquals(3, value.getSelectedValues().size());
+        assertEquals("Austria", value.getSelectedValues().get(SELECTED_COUNTRY));
+
+        // unknown value
+        values.put(SELECTED_COUNTRY, "England");
+        assertThrows(IllegalArgumentException.class, () -> definition.createValueFromValues(values));
+
+        // gap in path
+        values.remove(SELECTED_COUNTRY);
+        values.put(SELECTED_TEAM, "WSC Wien");
+        assertThrows(IllegalArgumentException.class, () -> definition.createValueFromValues(values));
+    }
+
+    @Test
+    void createValueFromRequest() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        StaplerRequest2 request = mock(StaplerRequest2.class);
+        assertEquals(0, ((MultiselectParameterValue) definition.createValue(request)).getSelectedValues().size());
+
+        when(request.getParameter(SELECTED_TYPE)).thenReturn("Ball");
+        when(request.getParameter(SELECTED_SPORT)).thenReturn("Football");
+        when(request.getParameter(SELECTED_COUNTRY)).thenReturn("France");
+        when(request.getParameter(SELECTED_TEAM)).thenReturn("Paris St. Germain");
+        MultiselectParameterValue value = (MultiselectParameterValue) definition.createValue(request);
+        assertEquals("Paris St. Germain", value.getSelectedValues().get(SELECTED_TEAM));
+        assertEquals(4, value.getSelectedValues().size());
+    }
+
+    @Test
+    void createValueFromCli() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        MultiselectParameterValue value = (MultiselectParameterValue) definition.createValue((CLICommand) null, "{\"SELECTED_TYPE\":\"Ball\",\"SELECTED_SPORT\":\"Handball\"}");
+        assertEquals("Handball", value.getSelectedValues().get(SELECTED_SPORT));
+        assertThrows(IllegalArgumentException.class, () -> definition.createValue((CLICommand) null, "SELECTED_TYPE=Ball"));
+    }
+
+    @Test
+    void searchItemList() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        MultiselectSearchResult result = definition.searchItemList(new Integer[]{0}, "surf", 10);
+        assertArrayEquals(new int[]{2}, result.getIndices());
+        assertArrayEquals(new String[]{"Surfing"}, result.getLabels());
+        assertEquals(1, definition.searchItemList(null, "", 1).getIndices().length);
+
+        MultiselectParameterDefinition empty = new MultiselectParameterDefinition(NAME, DESCRIPTION);
+        assertEquals(0, empty.searchItemList(new Integer[0], "surf", 10).getIndices().length);
+    }
+
+    @Test
+    void getItemPage() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        MultiselectItemPage page = definition.getItemPage(new Integer[]{0}, 2, 10);
+        assertArrayEquals(new String[]{"Surfing"}, page.getLabels());
+        assertEquals(3, page.getTotal());
+        assertEquals(2, definition.getItemPage(null, 0, 10).getTotal());
+
+        MultiselectItemPage[] pages = definition.getDependentItemPages(new Integer[]{1});
+        assertEquals(3, pages.length);
+        assertArrayEquals(new String[]{"Football", "Handball"}, pages[0].getLabels());
+
+        // page sizes of 0 or less still return one item
+        assertArrayEquals(new String[]{"Wakeboarding"}, definition.getItemPage(new Integer[]{0}, 0, 0).getLabels());
+        assertEquals(1, MultiselectParameterDefinition.pageSize(-5));
+        assertEquals(1000, MultiselectParameterDefinition.pageSize(Integer.MAX_VALUE));
+        assertEquals(200, definition.getPageSize());
+
+        MultiselectParameterDefinition empty = new MultiselectParameterDefinition(NAME, DESCRIPTION);
+        assertEquals(0, empty.getItemPage(new Integer[0], 0, 10).getTotal());
+        assertEquals(0, empty.getDependentItemPages(new Integer[0]).length);
+    }
+
+    @Test
+    void getVersion() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        String version = definition.getVersion();
+        assertEquals(16, version.length());
+        assertEquals(version, new MultiselectParameterDefinition("other", DESCRIPTION, MultiselectDecisionTree.parse(INPUT_STRING), CSV).getVersion());
+        assertFalse(definition.isPrefetch());
+
+        // version changes with content of decision tree
+        definition.setDecisionTree(VALIDATION1);
+        assertNotEquals(version, definition.getVersion());
+        assertEquals("", new MultiselectParameterDefinition(NAME, DESCRIPTION).getVersion());
+    }
+
+    @Test
+    void conditionalResponses() {
+        MultiselectParameterDefinition definition = new MultiselectParameterDefinition(NAME, DESCRIPTION, INPUT, CSV);
+        String version = definition.getVersion();
+
+        MultiselectConditionalResponse<String[]> response = definition.getItemListIfModified(new Integer[]{0}, null);
+        assertTrue(response.isModified());
+        assertEquals(version, response.getVersion());
+        assertArrayEquals(definition.getItemList(new Integer[]{0}), response.getItems());
+
+        response = definition.getItemListIfModified(new Integer[]{0}, version);
+        assertFalse(response.isModified());
+        assertNull(response.getItems());
+
+        assertFalse(definition.getItemPageIfModified(new Integer[]{0}, 0, 10, version).isModified());
+        assertEquals(3, definition.getItemPageIfModified(new Integer[]{0}, 0, 10, "outdated").getItems().getTotal());
+        assertFalse(definition.getDependentItemPagesIfModified(new Integer[]{0}, version).isModified());
+        assertEquals(3, definition.getDependentItemPagesIfModified(new Integer[]{0}, "").getItems().length);
+
+        // same content in a different format has the same version
+        definition.setFormat(MultiselectConfigurationFormat.BINARY);
+        assertFalse(definition.getItemListIfModified(new Integer[]{0}, version).isModified());
+    }
 }
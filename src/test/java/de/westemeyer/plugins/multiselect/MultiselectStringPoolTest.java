@@ -0,0 +1,93 @@
+package de.westemeyer.plugins.multiselect;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiselectStringPoolTest {
+    /** Constant for a value used in tests. */
+    private static final String VALUE = "linux-x64";
+
+    @Test
+    void intern() {
+        String first = new String(VALUE.toCharArray());
+        String second = new String(VALUE.toCharArray());
+        assertNotSame(first, second);
+
+        long misses = MultiselectStringPool.getMisses();
+        long hits = MultiselectStringPool.getHits();
+        long bytesSaved = MultiselectStringPool.getBytesSaved();
+        String canonical = MultiselectStringPool.intern(first);
+        assertSame(canonical, MultiselectStringPool.intern(second));
+        assertSame(canonical, MultiselectStringPool.intern(canonical));
+
+        assertTrue(MultiselectStringPool.getMisses() <= misses + 1);
+        assertTrue(MultiselectStringPool.getHits() >= hits + 2);
+        assertTrue(MultiselectStringPool.getBytesSaved() >= bytesSaved + VALUE.length());
+        assertTrue(MultiselectStringPool.size() > 0);
+        assertNull(MultiselectStringPool.intern(null));
+    }
+
+    @Test
+    void concurrentIntern() throws Exception {
+        // threads interning equal strings at the same time get the same canonical instances
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = IntStream.range(0, 4)
+                    .mapToObj(thread -> executor.submit(() -> IntStream.range(0, 1000)
+                            .mapToObj(i -> MultiselectStringPool.intern(new String(("concurrent-" + i).toCharArray())))
+                            .collect(Collectors.toList())))
+                    .collect(Collectors.toList());
+            List<String> first = results.get(0).get();
+            for (Future<List<String>> result : results) {
+                List<String> strings = result.get();
+                for (int i = 0; i < strings.size(); ++i) {
+                    assertSame(first.get(i), strings.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void decisionItemsShareStrings() throws Exception {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse("H,Type,Sport\nV,SELECTED_TYPE,SELECTED_SPORT\nT,Release,\nC,release,Football\nC,debug,Football\n");
+        MultiselectDecisionItem first = tree.getItemByCoordinates(0, 0);
+        MultiselectDecisionItem second = tree.getItemByCoordinates(1, 0);
+        assertSame(first.getValue(), second.getValue());
+        assertSame(first.getLabel(), second.getLabel());
+
+        MultiselectDecisionItem item = new MultiselectDecisionItem(null, null);
+        item.setValue(new String("release".toCharArray()));
+        item.setLabel(new String("Release".toCharArray()));
+        assertSame(tree.getItemByCoordinates(0).getValue(), item.getValue());
+        assertSame(tree.getItemByCoordinates(0).getLabel(), item.getLabel());
+
+        // deserialized items are canonicalized as well
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(item);
+        }
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            MultiselectDecisionItem copy = (MultiselectDecisionItem) inputStream.readObject();
+            assertEquals("release", copy.getValue());
+            assertSame(item.getValue(), copy.getValue());
+        }
+    }
+}
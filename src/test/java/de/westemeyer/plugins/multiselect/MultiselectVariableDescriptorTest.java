@@ -7,6 +7,9 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MultiselectVariableDescriptorTest {
     /** Constant for label. */
@@ -43,4 +46,31 @@ class MultiselectVariableDescriptorTest {
         descriptor.setVariableName("different name");
         assertEquals("different name", descriptor.getVariableName());
     }
+
+    @Test
+    void isSearchable() {
+        MultiselectVariableDescriptor descriptor = new MultiselectVariableDescriptor(LABEL, NAME);
+        assertFalse(descriptor.isSearchable());
+
+        // one column with few items, second column with many items below one of them
+        StringBuilder csv = new StringBuilder("H,Component,Module\nV,COMPONENT,MODULE\nC,Small,Single\n");
+        for (int i = 0; i < 100; ++i) {
+            csv.append("C,Large,Module ").append(i).append('\n');
+        }
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(csv.toString());
+        assertFalse(tree.getVariableDescriptions().get(0).isSearchable());
+        assertTrue(tree.getVariableDescriptions().get(1).isSearchable());
+    }
+
+    @Test
+    void structuralEquality() {
+        MultiselectVariableDescriptor descriptor = new MultiselectVariableDescriptor(LABEL, NAME);
+        MultiselectVariableDescriptor other = new MultiselectVariableDescriptor(LABEL, NAME);
+        other.setColumnIndex(2);
+        assertEquals(descriptor, other);
+        assertEquals(descriptor.hashCode(), other.hashCode());
+        other.setLabel("different label");
+        assertNotEquals(descriptor, other);
+        assertNotEquals(descriptor, new MultiselectVariableDescriptor(LABEL, "different name"));
+    }
 }
@@ -0,0 +1,87 @@
+package de.westemeyer.plugins.multiselect;
+
+/**
+ * Generator for synthetic CSV configurations, shared by tests and benchmarks. Row {@code n} contains the item indices
+ * given by the digits of {@code n} in base {@code fanOut}, so a configuration of all combinations is a complete tree.
+ */
+public final class SyntheticConfigurations {
+    /**
+     * Utility class without instances.
+     */
+    private SyntheticConfigurations() {
+    }
+
+    /**
+     * Create configuration with all combinations of values, grouped by value like a serialized tree.
+     * @param columns number of columns
+     * @param fanOut  number of child items per item
+     * @return CSV configuration
+     */
+    public static String createCsv(int columns, int fanOut) {
+        return createCsv(columns, fanOut, combinations(columns, fanOut), false, 0);
+    }
+
+    /**
+     * Create configuration.
+     * @param columns       number of columns
+     * @param fanOut        maximum number of child items per item
+     * @param rows          number of rows, limited by the number of combinations of columns and fan-out
+     * @param interleaved   whether the first column varies fastest, so rows of all first column values are
+     *                      interleaved, instead of the last one
+     * @param titleInterval add a title row for the last column before every row whose number is a multiple of this
+     *                      interval, 0 for no title rows
+     * @return CSV configuration
+     */
+    public static String createCsv(int columns, int fanOut, int rows, boolean interleaved, int titleInterval) {
+        StringBuilder csv = new StringBuilder("H");
+        StringBuilder variables = new StringBuilder("V");
+        for (int column = 0; column < columns; ++column) {
+            csv.append(",Column ").append(column);
+            variables.append(",COLUMN_").append(column);
+        }
+        csv.append('\n').append(variables).append('\n');
+
+        int count = Math.min(rows, combinations(columns, fanOut));
+        for (int row = 0; row < count; ++row) {
+            if (titleInterval > 0 && row % titleInterval == 0) {
+                csv.append('T');
+                for (int column = 0; column < columns - 1; ++column) {
+                    csv.append(',');
+                }
+                csv.append(",Label ").append(row).append('\n');
+            }
+            csv.append('C');
+            int[] digits = digits(row, columns, fanOut);
+            for (int column = 0; column < columns; ++column) {
+                csv.append(",Value ").append(column).append('-').append(digits[interleaved ? columns - 1 - column : column]);
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Number of possible rows for given number of columns and fan-out.
+     * @param columns number of columns
+     * @param fanOut  maximum number of children per item
+     * @return number of combinations, at most {@link Integer#MAX_VALUE}
+     */
+    public static int combinations(int columns, int fanOut) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.pow(fanOut, columns));
+    }
+
+    /**
+     * Split row number of a grouped configuration into item indices per column.
+     * @param row     row number
+     * @param columns number of columns
+     * @param fanOut  maximum number of children per item
+     * @return item index per column
+     */
+    public static int[] digits(int row, int columns, int fanOut) {
+        int[] digits = new int[columns];
+        for (int column = columns - 1, rest = row; column >= 0; --column, rest /= fanOut) {
+            digits[column] = rest % fanOut;
+        }
+        return digits;
+    }
+}
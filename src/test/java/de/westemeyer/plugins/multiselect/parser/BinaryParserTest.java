@@ -0,0 +1,91 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.Messages;
+import de.westemeyer.plugins.multiselect.MultiselectConfigurationFormat;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryParserTest {
+    /** Input csv for tests. */
+    private static final String INPUT_CSV = "H,Type,Sport,Country,Team\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY,SELECTED_TEAM\nC,Water,Wakeboarding,Germany,WSC Duisburg Rheinhausen\nC,Water,Wakeboarding,Germany,WSC Paderborn\nC,Water,Wakeboarding,Austria,WSC Wien\nT,,,,Alternative team name\nC,Water,Waterball,Germany,Waterball Team\nC,Water,Surfing,England,Bristol Surf Team\nC,Ball,Football,France,Paris St. Germain\nT,,,,Alternative team name\nC,Ball,Handball,Germany,THW Kiel\n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {INPUT_CSV, "", "V,A,B\n", "H,Hello,World\n", "H,\u00c4,\"a,b\"\nV,A,B\nT,\"\u00dc\"\"\",\nC,\"x\ny\",z\n"})
+    void roundTrip(String csv) throws Exception {
+        byte[] binary = write(MultiselectDecisionTree.parse(csv));
+        BinaryParser parser = new BinaryParser();
+        MultiselectDecisionTree decisionTree = parser.analyzeConfiguration(new ByteArrayInputStream(binary));
+        assertNull(parser.getValidationResult());
+        assertEquals(csv, decisionTree.toString());
+        assertEquals(decisionTree.getItemList().size(), decisionTree.getVariableDescriptions().isEmpty() ? 0 : decisionTree.getVariableDescriptions().get(0).getInitialValues().size());
+    }
+
+    @Test
+    void invalidConfiguration() throws Exception {
+        byte[] binary = write(MultiselectDecisionTree.parse(INPUT_CSV));
+        for (byte[] invalid : new byte[][]{new byte[0], "CSV".getBytes(), Arrays.copyOf(binary, binary.length / 2)}) {
+            BinaryParser parser = new BinaryParser();
+            MultiselectDecisionTree decisionTree = parser.analyzeConfiguration(new ByteArrayInputStream(invalid));
+            assertEquals(Messages.FormValidation_InvalidBinaryConfiguration(), parser.getValidationResult());
+            assertTrue(decisionTree.getItemList().isEmpty());
+            assertTrue(decisionTree.getVariableDescriptions().isEmpty());
+        }
+    }
+
+    @Test
+    void tooDeeplyNestedItems() {
+        for (int depth : new int[]{BinaryParser.MAX_DEPTH, 100000}) {
+            // magic, version, one string, no descriptors, then one item per level referencing the string
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.writeBytes(BinaryEncoding.MAGIC);
+            outputStream.write(BinaryEncoding.VERSION);
+            outputStream.writeBytes(new byte[]{1, 1, 'x', 0});
+            for (int i = 0; i < depth; ++i) {
+                outputStream.writeBytes(new byte[]{1, 1, 1});
+            }
+            outputStream.write(0);
+
+            BinaryParser parser = new BinaryParser();
+            MultiselectDecisionTree decisionTree = parser.analyzeConfiguration(new ByteArrayInputStream(outputStream.toByteArray()));
+            if (depth == BinaryParser.MAX_DEPTH) {
+                assertNull(parser.getValidationResult());
+                assertEquals(1, decisionTree.getItemList().size());
+            } else {
+                assertEquals(Messages.FormValidation_InvalidBinaryConfiguration(), parser.getValidationResult());
+                assertTrue(decisionTree.getItemList().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void convert() throws Exception {
+        String binary = MultiselectParameterParser.convert(INPUT_CSV, MultiselectConfigurationFormat.CSV, MultiselectConfigurationFormat.BINARY);
+        assertEquals(INPUT_CSV, MultiselectParameterParser.convert(binary, MultiselectConfigurationFormat.BINARY, MultiselectConfigurationFormat.CSV));
+        MultiselectParameterParser parser = new MultiselectParameterParser(MultiselectConfigurationFormat.BINARY);
+        assertThrows(IOException.class, () -> parser.parseConfiguration("not base64!"));
+    }
+
+    /**
+     * Write tree in binary format.
+     * @param decisionTree decision tree
+     * @return binary configuration
+     * @throws Exception in case of errors writing the tree
+     */
+    private static byte[] write(MultiselectDecisionTree decisionTree) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new BinaryWriter().serialize(decisionTree, outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import com.opencsv.CSVWriter;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.MultiselectVariableDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvPathWriterTest {
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "H,Sport,Team\nV,SELECTED_SPORT,SELECTED_TEAM\nC,Tennis,Oppumer TC\nT,,Alternative label\nC,Tennis,TC Rumeln\nC,Football,FC Rumeln\n",
+            "H,A,B,C\nV,A,B,C\nT,,,\"Label \"\"quoted\"\"\"\nC,\"Comma, separated\",x,y\nC,\"Comma, separated\",x,z\nT,,\"multi\nline\",\nC,b,c,d\n",
+            "H,A\nV,A\nC,single\n"
+    })
+    void sameOutputAsVisitor(String csv) throws Exception {
+        MultiselectDecisionTree tree = MultiselectDecisionTree.parse(csv);
+        assertEquals(writeWithVisitor(tree), writeWithPath(tree));
+        assertEquals(csv, tree.toString());
+    }
+
+    @Test
+    void unevenDepth() throws Exception {
+        // leaves on different levels, tree deeper than variable descriptions, items without value and carriage returns
+        MultiselectDecisionItem deep = createItem(null, "deep", createItem("Deeper", "deeper"));
+        MultiselectDecisionItem root = createItem(null, "root", createItem(null, null), deep);
+        MultiselectDecisionTree tree = new MultiselectDecisionTree();
+        tree.setVariableDescriptions(List.of(new MultiselectVariableDescriptor("A", "A")));
+        tree.setItemList(Arrays.asList(root, createItem("", "carriage\rreturn")));
+        String expected = writeWithVisitor(tree);
+        assertEquals("C,root,\nT,,,Deeper\nC,root,deep,deeper\nC,\"carriage\rreturn\"\n", expected);
+        assertEquals(expected, writeWithPath(tree));
+    }
+
+    /**
+     * Create item with children.
+     * @param label    item label
+     * @param value    item value
+     * @param children child items
+     * @return new item
+     */
+    private static MultiselectDecisionItem createItem(String label, String value, MultiselectDecisionItem... children) {
+        MultiselectDecisionItem item = new MultiselectDecisionItem(label, value);
+        item.setChildren(new ArrayList<>(Arrays.asList(children)));
+        return item;
+    }
+
+    /**
+     * Write item rows using reference visitor.
+     * @param tree decision tree
+     * @return CSV rows
+     * @throws Exception in case of errors in visitor
+     */
+    private static String writeWithVisitor(MultiselectDecisionTree tree) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        try (CSVWriter writer = new CSVWriter(stringWriter)) {
+            tree.visitSubTree(new CvwWriterVisitor(writer));
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * Write item rows using path writer.
+     * @param tree decision tree
+     * @return CSV rows
+     * @throws Exception in case of errors writing rows
+     */
+    private static String writeWithPath(MultiselectDecisionTree tree) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        new CsvPathWriter(stringWriter).write(tree.getItemList());
+        return stringWriter.toString();
+    }
+}
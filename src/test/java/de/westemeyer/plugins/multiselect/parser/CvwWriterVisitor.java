@@ -11,7 +11,8 @@ import java.util.List;
 
 /**
  * Visitor class to write tree to CSV. Traverse tree until leaf node is reached before going all the way back to the
- * root node to construct two complete lines of labels and values.
+ * root node to construct two complete lines of labels and values. Former implementation of {@link CsvWriter}, kept
+ * in tests to check that {@link CsvPathWriter} produces the same output in a single pass.
  */
 class CvwWriterVisitor implements MultiselectDecisionItemVisitor {
     /** Writer to use. */
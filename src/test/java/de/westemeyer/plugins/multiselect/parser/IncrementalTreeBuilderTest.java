@@ -0,0 +1,150 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionItem;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalTreeBuilderTest {
+    /** Grouped input, as created by serializing a tree. */
+    private static final String GROUPED_CSV = "H,Type,Sport,Country\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY\nC,Water,Wakeboarding,Germany\nC,Water,Wakeboarding,Austria\nT,Alternative title,,\nC,Water,Surfing,England\nC,Ball,Football,France\nC,Ball,Football,Germany\nC,Air,Gliding,Germany\n";
+
+    @Test
+    void reuseUnchangedTree() {
+        MultiselectDecisionTree previous = initial(GROUPED_CSV);
+        assertEquals(3, previous.getSourceFingerprints().size());
+
+        MultiselectDecisionTree tree = parse(GROUPED_CSV, previous);
+        assertEquals(previous, tree);
+        for (int i = 0; i < 3; ++i) {
+            assertSame(previous.getItemList().get(i), tree.getItemList().get(i));
+        }
+        assertEquals(previous.getSourceFingerprints(), tree.getSourceFingerprints());
+    }
+
+    @Test
+    void rebuildChangedSubtreesOnly() {
+        MultiselectDecisionTree previous = initial(GROUPED_CSV);
+        String edited = GROUPED_CSV.replace("C,Ball,Football,Germany\n", "C,Ball,Football,Spain\nC,Ball,Handball,Germany\n") + "C,Snow,Skiing,Austria\n";
+
+        MultiselectDecisionTree tree = parse(edited, previous);
+        assertEquals(parse(edited, null), tree);
+
+        // only the subtrees of changed and new values are built again
+        List<MultiselectDecisionItem> items = tree.getItemList();
+        assertSame(previous.getItemList().get(0), items.get(0));
+        assertNotSame(previous.getItemList().get(1), items.get(1));
+        assertSame(previous.getItemList().get(2), items.get(2));
+        assertEquals("Snow", items.get(3).getValue());
+        assertFalse(items.get(1).getChildren().isEmpty());
+        assertSame(items.get(1), items.get(1).getChildren().get(0).getParent());
+    }
+
+    @Test
+    void changedTitleRebuildsSubtree() {
+        MultiselectDecisionTree previous = initial(GROUPED_CSV);
+        MultiselectDecisionTree tree = parse(GROUPED_CSV.replace("T,Alternative title,,", "T,,Other title,"), previous);
+        assertNotSame(previous.getItemList().get(0), tree.getItemList().get(0));
+        assertEquals("Other title", tree.getItemByCoordinates(0, 1).getLabel());
+        assertSame(previous.getItemList().get(1), tree.getItemList().get(1));
+    }
+
+    @Test
+    void ungroupedRowsAreNotReused() {
+        String ungrouped = GROUPED_CSV + "C,Water,Kayaking,Norway\n";
+        MultiselectDecisionTree previous = initial(ungrouped);
+        assertFalse(previous.getSourceFingerprints().containsKey("Water"));
+
+        // rows of value "Water" are split into two blocks, so they are built again, in order of their first appearance
+        MultiselectDecisionTree tree = parse(ungrouped, previous);
+        assertEquals(parse(ungrouped, null), tree);
+        assertNotSame(previous.getItemList().get(0), tree.getItemList().get(0));
+        assertSame(previous.getItemList().get(1), tree.getItemList().get(1));
+        assertEquals("Kayaking", tree.getItemByCoordinates(0, 2).getValue());
+    }
+
+    @Test
+    void reusedPartitionContinuedLater() {
+        String labelled = GROUPED_CSV.replace("C,Ball,Football,France", "T,Balls,Kicking,\nC,Ball,Football,France");
+        MultiselectDecisionTree previous = initial(labelled);
+
+        // rows of "Ball" match the previous tree at first, but more rows of the value follow after other values
+        String edited = labelled + "C,Ball,Handball,Germany\n";
+        MultiselectDecisionTree tree = parse(edited, previous);
+        assertEquals(parse(edited, null), tree);
+        assertNotSame(previous.getItemList().get(1), tree.getItemList().get(1));
+        assertEquals("Balls", tree.getItemByCoordinates(1).getLabel());
+        assertEquals("Kicking", tree.getItemByCoordinates(1, 0).getLabel());
+        assertEquals("Handball", tree.getItemByCoordinates(1, 1).getValue());
+        assertSame(previous.getItemList().get(0), tree.getItemList().get(0));
+        assertSame(previous.getItemList().get(2), tree.getItemList().get(2));
+        assertFalse(tree.getSourceFingerprints().containsKey("Ball"));
+    }
+
+    @Test
+    void compactTreeIsNotReused() {
+        MultiselectDecisionTree previous = parse(GROUPED_CSV, null).toBuilder().compact(true).build();
+        assertTrue(previous.getSourceFingerprints().isEmpty());
+        MultiselectDecisionTree tree = parse(GROUPED_CSV, previous);
+        assertEquals(previous, tree);
+        assertDoesNotThrow(() -> tree.getItemList().get(0).setLabel("Mutable"));
+    }
+
+    @Test
+    void fingerprintsOnlyForNewVersions() {
+        // trees parsed without a previous version, like materialized job configurations, do not keep fingerprints
+        assertTrue(parse(GROUPED_CSV, null).getSourceFingerprints().isEmpty());
+
+        // incremental parsing is disabled unless enabled by system property
+        MultiselectDecisionTree previous = initial(GROUPED_CSV);
+        MultiselectDecisionTree tree = new CsvParser(false, false).analyzeConfiguration(new ByteArrayInputStream(GROUPED_CSV.getBytes(StandardCharsets.UTF_8)), previous);
+        assertEquals(previous, tree);
+        assertNotSame(previous.getItemList().get(0), tree.getItemList().get(0));
+        assertTrue(tree.getSourceFingerprints().isEmpty());
+    }
+
+    @Test
+    void streamingAndParallelDelegates() {
+        MultiselectDecisionTree previous = initial(GROUPED_CSV);
+        String edited = "C,New,Value\n" + GROUPED_CSV.replace("Gliding", "Skydiving");
+        for (boolean streaming : new boolean[]{false, true}) {
+            for (boolean parallel : new boolean[]{false, true}) {
+                CsvParser parser = new CsvParser(streaming, parallel, true);
+                MultiselectDecisionTree tree = parser.analyzeConfiguration(new ByteArrayInputStream(edited.getBytes(StandardCharsets.UTF_8)), previous);
+                assertEquals(parse(edited, null), tree);
+
+                // streaming mode does not hold back rows, so nothing is reused
+                assertEquals(!streaming, previous.getItemList().get(0) == tree.getItemList().get(1));
+            }
+        }
+    }
+
+    /**
+     * Parse first version of a configuration edited in the job configuration form, where there is no previous tree yet.
+     * @param input configuration
+     * @return snapshot of tree with fingerprints
+     */
+    private static MultiselectDecisionTree initial(String input) {
+        return parse(input, new MultiselectDecisionTree()).snapshot();
+    }
+
+    /**
+     * Parse configuration with incremental parsing enabled.
+     * @param input    configuration
+     * @param previous previous version of tree, {@code null} if there is none
+     * @return parsed tree
+     */
+    private static MultiselectDecisionTree parse(String input, MultiselectDecisionTree previous) {
+        return new CsvParser(false, false, true).analyzeConfiguration(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), previous);
+    }
+}
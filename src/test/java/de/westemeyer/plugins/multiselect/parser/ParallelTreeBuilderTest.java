@@ -0,0 +1,75 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.Messages;
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.SyntheticConfigurations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParallelTreeBuilderTest {
+    /** Input with values returning to items that have been left before, titles and too many columns in row 8. */
+    private static final String UNGROUPED_CSV = "H,Type,Sport,Country\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY\nC,Water,Wakeboarding,Germany\nC,Ball,Football,France\nT,Alternative title,,\nC,Water,Surfing,England\nC,Water,Wakeboarding,Austria\nC,Ball,Football,Germany,Too many columns\nC,Ball\nT,,Other title,\nC,Air,Gliding,Germany\nC,Water,Wakeboarding,Germany\n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {UNGROUPED_CSV, "", "C,a,b\nC,a\nC,a,c\n", "H,A,B\nV,A,B\nT,x,y\nC,a,b\nT,z,z\nC,a,b\nC,b,a\nC,a,a\n"})
+    void sameTreeAsSequentialParser(String input) {
+        for (boolean streaming : new boolean[]{false, true}) {
+            CsvParser sequentialParser = new CsvParser(streaming, false);
+            CsvParser parallelParser = new CsvParser(streaming, true);
+            MultiselectDecisionTree sequentialTree = parse(sequentialParser, input);
+            MultiselectDecisionTree parallelTree = parse(parallelParser, input);
+            assertEquals(sequentialTree.toString(), parallelTree.toString());
+            assertEquals(sequentialTree, parallelTree);
+            assertEquals(sequentialParser.getValidationResult(), parallelParser.getValidationResult());
+        }
+    }
+
+    @Test
+    void validationMessageContainsRowNumber() {
+        CsvParser parser = new CsvParser(false, true);
+        parse(parser, UNGROUPED_CSV);
+        assertEquals(Messages.FormValidation_NotEnoughColumns(8), parser.getValidationResult());
+    }
+
+    @Test
+    void parentReferences() {
+        MultiselectDecisionTree tree = parse(new CsvParser(false, true), UNGROUPED_CSV);
+        assertNull(tree.getItemByCoordinates(0).getParent());
+        assertEquals("Water", tree.getItemByCoordinates(0, 0).getParent().getValue());
+        assertEquals("Air", tree.getItemByCoordinates(2, 0).getParent().getValue());
+        assertEquals("Other title", tree.getItemByCoordinates(2, 0).getLabel());
+    }
+
+    @Test
+    void largeConfiguration() {
+        // 4 columns with 18 values each, 104976 rows, rows of first column values interleaved
+        String input = SyntheticConfigurations.createCsv(4, 18, Integer.MAX_VALUE, true, 0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CsvParser parallelParser = new CsvParser(false, true) {
+                @Override
+                ItemTreeBuilder createTreeBuilder() {
+                    return new ParallelTreeBuilder(LookupTreeBuilder::new, pool);
+                }
+            };
+            MultiselectDecisionTree sequentialTree = parse(new CsvParser(false, false), input);
+            MultiselectDecisionTree parallelTree = parse(parallelParser, input);
+            assertEquals(sequentialTree, parallelTree);
+            assertEquals(sequentialTree.toString(), parallelTree.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static MultiselectDecisionTree parse(CsvParser parser, String input) {
+        return parser.analyzeConfiguration(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,58 @@
+package de.westemeyer.plugins.multiselect.parser;
+
+import de.westemeyer.plugins.multiselect.MultiselectDecisionTree;
+import de.westemeyer.plugins.multiselect.SyntheticConfigurations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingTreeBuilderTest {
+    /** Input with values returning to items that have been left before. */
+    private static final String UNGROUPED_CSV = "H,Type,Sport,Country\nV,SELECTED_TYPE,SELECTED_SPORT,SELECTED_COUNTRY\nC,Water,Wakeboarding,Germany\nC,Ball,Football,France\nT,Alternative title,,\nC,Water,Surfing,England\nC,Water,Wakeboarding,Austria\nC,Ball,Football,Germany,Too many columns\nC,Ball\nC,Water,Wakeboarding,Germany\n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {UNGROUPED_CSV, "", "C,a,b\nC,a\nC,a,c\n", "H,A,B\nV,A,B\nT,x,y\nC,a,b\nT,z,z\nC,a,b\nC,b,a\nC,a,a\n"})
+    void sameTreeAsLookupTreeBuilder(String input) {
+        CsvParser lookupParser = new CsvParser(false);
+        CsvParser streamingParser = new CsvParser(true);
+        assertEquals(parse(lookupParser, input).toString(), parse(streamingParser, input).toString());
+        assertEquals(lookupParser.getValidationResult(), streamingParser.getValidationResult());
+    }
+
+    @Test
+    void parentReferences() {
+        MultiselectDecisionTree tree = parse(new CsvParser(true), UNGROUPED_CSV);
+        assertNull(tree.getItemByCoordinates(0).getParent());
+        assertEquals("Water", tree.getItemByCoordinates(0, 0).getParent().getValue());
+        assertEquals("Wakeboarding", tree.getItemByCoordinates(0, 0, 1).getParent().getValue());
+    }
+
+    @Test
+    void largeConfigurationKeepsLookupTablesForOpenPathOnly() {
+        // 4 columns with 18 values each, 104976 rows
+        String input = SyntheticConfigurations.createCsv(4, 18);
+        StreamingTreeBuilder builder = new StreamingTreeBuilder();
+        CsvParser streamingParser = new CsvParser(true) {
+            @Override
+            ItemTreeBuilder createTreeBuilder() {
+                return builder;
+            }
+        };
+
+        assertEquals(parse(new CsvParser(false), input).toString(), parse(streamingParser, input).toString());
+
+        // one lookup table per column, containing at most all values of the column
+        assertTrue(builder.getMaxLookupEntries() <= 4 * 18, "Kept " + builder.getMaxLookupEntries() + " lookup table entries");
+    }
+
+    private static MultiselectDecisionTree parse(CsvParser parser, String input) {
+        return parser.analyzeConfiguration(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}